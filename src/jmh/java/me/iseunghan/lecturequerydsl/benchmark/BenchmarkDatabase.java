@@ -0,0 +1,70 @@
+package me.iseunghan.lecturequerydsl.benchmark;
+
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.LectureQuerydslApplication;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.repository.MemberJpaRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 벤치마크용 애플리케이션 컨텍스트를 띄우고 인메모리 H2에 데이터를 채운다.
+ * member i는 username "member{i}", age i % 100, team "team{i % TEAM_COUNT}"을 가진다.
+ */
+final class BenchmarkDatabase {
+
+    static final int TEAM_COUNT = 10;
+    private static final int BATCH_SIZE = 1000;
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start(int memberCount) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LectureQuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.profiles.active=bench",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + BATCH_SIZE,
+                        "--decorator.datasource.enabled=false",
+                        "--datasource.replica.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN");
+        seed(context, memberCount);
+        return context;
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int memberCount) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<Long> teamIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+
+        MemberJpaRepository memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        Iterable<Member> members = () -> IntStream.range(0, memberCount)
+                .mapToObj(i -> {
+                    Member member = new Member("member" + i, i % 100);
+                    member.setTeam(em.getReference(Team.class, teamIds.get(i % TEAM_COUNT)));
+                    return member;
+                })
+                .iterator();
+        memberJpaRepository.saveAll(members);
+    }
+}
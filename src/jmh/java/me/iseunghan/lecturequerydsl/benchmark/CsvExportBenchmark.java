@@ -0,0 +1,73 @@
+package me.iseunghan.lecturequerydsl.benchmark;
+
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.repository.MemberJpaRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * /v1/members/export와 같은 방식으로 member 2,000,000명 전체를 CSV로 내보낸다. (응답 대신 버리는 OutputStream에 쓴다)
+ * 점수(ops/s)는 초당 row 수다. 메모리는 gc 프로파일러(./gradlew jmh는 build.gradle의 profilers = ['gc'], 직접 실행하면 -prof gc)로 본다.
+ * gc.alloc.rate.norm이 row당 할당 바이트이고(OperationsPerInvocation), 결과 리스트를 만들지 않으므로 row 수와 관계없이 일정해야 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(CsvExportBenchmark.MEMBER_COUNT)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class CsvExportBenchmark {
+
+    static final int MEMBER_COUNT = 2_000_000;
+    private static final int FETCH_SIZE = 10_000;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    @Param({"true", "false"})
+    boolean gzip;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchCond cond;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkDatabase.start(MEMBER_COUNT);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        cond = new MemberSearchCond();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        if (!gzip) {
+            return memberJpaRepository.exportMember_Csv(cond, FETCH_SIZE, out);
+        }
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE)) {
+            return memberJpaRepository.exportMember_Csv(cond, FETCH_SIZE, gzipOut);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package me.iseunghan.lecturequerydsl.benchmark;
+
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import me.iseunghan.lecturequerydsl.repository.MemberTestRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * member 1,000,000명에서 offset 페이징(pageSelect_Count)과 deferred join 페이징(pageSelect_DeferredJoin)을 비교한다.
+ * 두 방식 모두 같은 count 쿼리를 실행하므로, 차이는 content를 가져오는 쿼리에서 나온다.
+ * page는 20개씩 0번째(offset 0), 1000번째(offset 20,000), 45000번째(offset 900,000) 페이지.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class DeepPaginationBenchmark {
+
+    private static final int MEMBER_COUNT = 1_000_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"0", "1000", "45000"})
+    int page;
+
+    private ConfigurableApplicationContext context;
+    private MemberTestRepository memberTestRepository;
+    private MemberSearchCond cond;
+    private PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkDatabase.start(MEMBER_COUNT);
+        memberTestRepository = context.getBean(MemberTestRepository.class);
+        cond = new MemberSearchCond();
+        pageRequest = PageRequest.of(page, PAGE_SIZE, Sort.by("id"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> offset() {
+        return memberTestRepository.pageSelect_Count(cond, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> deferredJoin() {
+        return memberTestRepository.pageSelect_DeferredJoin(cond, pageRequest);
+    }
+}
@@ -0,0 +1,182 @@
+package me.iseunghan.lecturequerydsl.benchmark;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.dto.MemberDto;
+import me.iseunghan.lecturequerydsl.dto.MemberQueryDslDto;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import me.iseunghan.lecturequerydsl.dto.QMemberQueryDslDto;
+import me.iseunghan.lecturequerydsl.dto.QMemberTeamDto;
+import me.iseunghan.lecturequerydsl.repository.MemberSearchQueryRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static me.iseunghan.lecturequerydsl.entity.QMember.member;
+import static me.iseunghan.lecturequerydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * QuerydslTest에서 같은 결과를 내는 여러 방식(동적 쿼리, 프로젝션)의 처리량과 할당량을 비교한다.
+ * 조건은 전체의 약 4% (teamName 하나, age 20~60)에 해당한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class QuerydslPatternBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    int memberCount;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private MemberSearchQueryRegistry memberSearchQueries;
+    private MemberSearchCond cond;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkDatabase.start(memberCount);
+        queryFactory = new JPAQueryFactory(context.getBean(EntityManager.class));
+        memberSearchQueries = context.getBean(MemberSearchQueryRegistry.class);
+
+        cond = new MemberSearchCond();
+        cond.setTeamName("team3");
+        cond.setAgeGoe(20);
+        cond.setAgeLoe(60);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /* ---------- 동적 쿼리 ---------- */
+
+    @Benchmark
+    public List<MemberTeamDto> dynamicQuery_booleanBuilder() {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (hasText(cond.getUsername())) {
+            builder.and(member.username.eq(cond.getUsername()));
+        }
+        if (hasText(cond.getTeamName())) {
+            builder.and(team.name.eq(cond.getTeamName()));
+        }
+        if (Objects.nonNull(cond.getAgeGoe())) {
+            builder.and(member.age.goe(cond.getAgeGoe()));
+        }
+        if (Objects.nonNull(cond.getAgeLoe())) {
+            builder.and(member.age.loe(cond.getAgeLoe()));
+        }
+
+        return queryFactory.select(memberTeamDto())
+                .from(member)
+                .join(member.team, team)
+                .where(builder)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> dynamicQuery_whereParam() {
+        return queryFactory.select(memberTeamDto())
+                .from(member)
+                .join(member.team, team)
+                .where(
+                        usernameEq(cond.getUsername()),
+                        teamNameEq(cond.getTeamName()),
+                        memberAgeGoe(cond.getAgeGoe()),
+                        memberAgeLoe(cond.getAgeLoe())
+                )
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> dynamicQuery_shapeTemplate() {
+        return memberSearchQueries.contentQuery(cond)
+                .fetch();
+    }
+
+    /* ---------- 프로젝션 ---------- */
+
+    @Benchmark
+    public List<MemberDto> projection_bean() {
+        return queryFactory.select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .where(member.age.between(cond.getAgeGoe(), cond.getAgeLoe()))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projection_fields() {
+        return queryFactory.select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .where(member.age.between(cond.getAgeGoe(), cond.getAgeLoe()))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projection_constructor() {
+        return queryFactory.select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .where(member.age.between(cond.getAgeGoe(), cond.getAgeLoe()))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberQueryDslDto> projection_queryProjection() {
+        return queryFactory.select(new QMemberQueryDslDto(member.username, member.age))
+                .from(member)
+                .where(member.age.between(cond.getAgeGoe(), cond.getAgeLoe()))
+                .fetch();
+    }
+
+    private static QMemberTeamDto memberTeamDto() {
+        return new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName"));
+    }
+
+    private static BooleanExpression usernameEq(String username) {
+        return hasText(username) ?
+                member.username.eq(username) : null;
+    }
+
+    private static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ?
+                team.name.eq(teamName) : null;
+    }
+
+    private static BooleanExpression memberAgeGoe(Integer memberAge) {
+        return Objects.nonNull(memberAge) ?
+                member.age.goe(memberAge) : null;
+    }
+
+    private static BooleanExpression memberAgeLoe(Integer memberAge) {
+        return Objects.nonNull(memberAge) ?
+                member.age.loe(memberAge) : null;
+    }
+}
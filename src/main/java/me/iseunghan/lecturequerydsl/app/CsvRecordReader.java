@@ -0,0 +1,73 @@
+package me.iseunghan.lecturequerydsl.app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV(RFC 4180)를 레코드 하나씩 읽는다. 큰따옴표로 감싼 값 안의 쉼표, 줄바꿈, 두번 쓴 큰따옴표("")를 처리하고, 빈 줄은 건너뛴다.
+ */
+final class CsvRecordReader {
+
+    private final BufferedReader reader;
+    private final StringBuilder field = new StringBuilder();
+
+    CsvRecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return 다음 레코드의 값들. 더 이상 없으면 null
+     */
+    List<String> next() throws IOException {
+        List<String> record = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean empty = true;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                if (reader.read() == '"') {
+                    field.append('"');
+                } else {
+                    reader.reset();
+                    quoted = false;
+                }
+            } else if (c == '\n') {
+                if (empty) {
+                    continue;
+                }
+                record.add(field.toString());
+                return record;
+            } else if (c == '\r') {
+                // \r\n의 \r은 버린다.
+            } else if (c == '"') {
+                quoted = true;
+                empty = false;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+                empty = false;
+            } else {
+                field.append((char) c);
+                empty = false;
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value at end of input!");
+        }
+        if (empty) {
+            return null;
+        }
+        record.add(field.toString());
+        return record;
+    }
+}
@@ -4,12 +4,19 @@ import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.iseunghan.lecturequerydsl.dto.BatchWriteResult;
 import me.iseunghan.lecturequerydsl.entity.Member;
 import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.repository.MemberJpaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.stream.IntStream;
+
 @Profile("local")
 @RequiredArgsConstructor
 @Component
@@ -22,11 +29,18 @@ public class InitMember {
         initMemberService.init();
     }
 
+    @Slf4j
     @Component
     static class InitMemberService {
         @PersistenceContext
         private EntityManager em;
 
+        @Autowired
+        private MemberJpaRepository memberJpaRepository;
+
+        @Value("${init.member-count:100}")
+        private int memberCount;
+
         @Transactional
         public void init() {
             Team teamA = new Team("teamA");
@@ -34,10 +48,17 @@ public class InitMember {
             em.persist(teamA);
             em.persist(teamB);
 
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
-            }
+            // 생성자 대신 setTeam을 사용해서 team.members에 member가 계속 쌓이지 않게 한다.
+            Iterable<Member> members = () -> IntStream.range(0, memberCount)
+                    .mapToObj(i -> {
+                        Member member = new Member("member" + i, i);
+                        member.setTeam(i % 2 == 0 ? teamA : teamB);
+                        return member;
+                    })
+                    .iterator();
+
+            BatchWriteResult result = memberJpaRepository.saveAll(members);
+            log.info("init members: {}", result);
         }
     }
 }
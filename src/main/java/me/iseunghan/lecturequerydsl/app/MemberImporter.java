@@ -0,0 +1,309 @@
+package me.iseunghan.lecturequerydsl.app;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import me.iseunghan.lecturequerydsl.dto.BatchWriteResult;
+import me.iseunghan.lecturequerydsl.dto.MemberImportRow;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.repository.MemberJpaRepository;
+import me.iseunghan.lecturequerydsl.repository.TeamRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * CSV(username,age,teamName) 또는 NDJSON({"username":..,"age":..,"teamName":..}) 스트림을 읽으면서 member를 일괄 등록한다.
+ * - 요청 스레드는 입력을 읽어서 transactionSize개씩 묶어 큐에 넣고, import 전용 스레드 하나가 꺼내서 묶음마다 트랜잭션 하나로 저장한다.
+ *   (MemberJpaRepository.saveAll: hibernate.jdbc.batch_size 단위 JDBC 배치 insert)
+ * - import 전용 스레드는 maxConcurrent개다. SSE 스트림 등 다른 작업이 바빠도 저장이 밀리지 않고, 모두 사용 중이면 바로 거절한다.
+ * - 큐 크기가 queueCapacity로 제한되어 있어서 저장이 느리면 입력도 그만큼 천천히 읽는다. (힙에는 최대 queueCapacity + 2 묶음만 있다)
+ * - 팀 이름은 import마다 이름 -> id 맵에 담아두고, 처음 보는 이름만 findFirstByName(쿼리 캐시)으로 찾고 없으면 만든다.
+ *   팀을 찾거나 만드는 것도 묶음을 저장하는 트랜잭션 안에서 한다.
+ *
+ * 주의! 묶음마다 커밋하기 때문에 중간에 실패하면 그 전 묶음까지는 저장된 상태로 남는다.
+ * 같은 이름의 새 팀을 동시에 import하면 팀이 두번 만들어질 수 있다. (team.name에 unique 제약이 없다)
+ */
+@Slf4j
+@Component
+public class MemberImporter implements DisposableBean {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final List<String> CSV_HEADER = List.of("username", "age", "teamName");
+    private static final List<MemberImportRow> END = List.of();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final TeamRepository teamRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final ThreadPoolExecutor executor;
+    private final int transactionSize;
+    private final int queueCapacity;
+    private final long progressInterval;
+
+    public MemberImporter(MemberJpaRepository memberJpaRepository,
+                          TeamRepository teamRepository,
+                          EntityManager em,
+                          ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${member.import.transaction-size:5000}") int transactionSize,
+                          @Value("${member.import.queue-capacity:4}") int queueCapacity,
+                          @Value("${member.import.max-concurrent:2}") int maxConcurrent,
+                          @Value("${member.import.progress-interval:100000}") long progressInterval) {
+        Assert.isTrue(transactionSize > 0, "Transaction size must be greater than zero!");
+        Assert.isTrue(queueCapacity > 0, "Queue capacity must be greater than zero!");
+        Assert.isTrue(maxConcurrent > 0, "Max concurrent must be greater than zero!");
+        this.memberJpaRepository = memberJpaRepository;
+        this.teamRepository = teamRepository;
+        this.em = em;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "member-import-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.transactionSize = transactionSize;
+        this.queueCapacity = queueCapacity;
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * in을 끝까지 읽고 저장이 모두 끝나면 반환한다. in은 닫지 않는다.
+     * @throws IllegalArgumentException 형식이 잘못된 레코드가 있는 경우 (몇 번째 레코드인지 포함)
+     * @throws RejectedExecutionException 이미 maxConcurrent개의 import가 실행 중인 경우 (컨트롤러는 503으로 응답한다)
+     */
+    public BatchWriteResult importMembers(InputStream in, Format format) throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<List<MemberImportRow>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Writer writer = new Writer(queue, start);
+        Future<Long> written;
+        try {
+            written = executor.submit(writer);
+        } catch (RejectedExecutionException e) {
+            throw new RejectedExecutionException("Too many concurrent member imports!", e);
+        }
+
+        try {
+            RowSource source = open(in, format);
+            List<MemberImportRow> chunk = new ArrayList<>(transactionSize);
+            long records = 0;
+            for (MemberImportRow row; (row = source.next()) != null; ) {
+                records++;
+                validate(row, records);
+                chunk.add(row);
+                if (chunk.size() == transactionSize) {
+                    hand(queue, chunk, written);
+                    chunk = new ArrayList<>(transactionSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                hand(queue, chunk, written);
+            }
+            hand(queue, END, written);
+        } catch (IOException | RuntimeException e) {
+            writer.aborted = true;
+            queue.clear();
+            queue.offer(END);
+            // 저장 중인 묶음이 끝날 때까지 기다려서, 반환한 뒤에는 더 저장되지 않게 한다. (저장 스레드의 예외는 무시한다)
+            try {
+                await(written);
+            } catch (IOException | RuntimeException ignored) {
+            }
+            throw e;
+        }
+
+        long rows = await(written);
+        BatchWriteResult result = new BatchWriteResult(rows, System.nanoTime() - start);
+        log.info("member import done: {}", result);
+        return result;
+    }
+
+    private RowSource open(InputStream in, Format format) throws IOException {
+        if (format == Format.NDJSON) {
+            MappingIterator<MemberImportRow> rows = objectMapper.readerFor(MemberImportRow.class).readValues(in);
+            return () -> rows.hasNextValue() ? rows.nextValue() : null;
+        }
+
+        return new CsvRowSource(new CsvRecordReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))));
+    }
+
+    private static void validate(MemberImportRow row, long record) {
+        if (!hasText(row.getUsername())) {
+            throw new IllegalArgumentException("Username is required at record " + record);
+        }
+        if (row.getAge() == null) {
+            throw new IllegalArgumentException("Age is required at record " + record);
+        }
+        if (row.getAge() < 0) {
+            throw new IllegalArgumentException("Age must not be negative at record " + record);
+        }
+    }
+
+    /**
+     * 큐에 자리가 날 때까지 기다린다. 그동안 저장 스레드가 실패하면 바로 그 예외를 던진다.
+     */
+    private static void hand(BlockingQueue<List<MemberImportRow>> queue, List<MemberImportRow> chunk, Future<Long> written) throws IOException {
+        try {
+            while (!queue.offer(chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (written.isDone()) {
+                    await(written);
+                    throw new IllegalStateException("Member import writer stopped unexpectedly!");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Member import interrupted!", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static long await(Future<Long> written) throws IOException {
+        try {
+            return written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Member import interrupted!", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        /**
+         * @return 다음 row. 더 이상 없으면 null
+         */
+        MemberImportRow next() throws IOException;
+    }
+
+    /**
+     * username,age[,teamName] 순서의 CSV. 첫 레코드가 헤더(username,age,teamName)면 건너뛴다.
+     */
+    private static class CsvRowSource implements RowSource {
+
+        private final CsvRecordReader reader;
+        private long records;
+
+        CsvRowSource(CsvRecordReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public MemberImportRow next() throws IOException {
+            List<String> record = reader.next();
+            if (records == 0 && record != null && record.stream().map(String::trim).toList().equals(CSV_HEADER)) {
+                record = reader.next();
+            }
+            if (record == null) {
+                return null;
+            }
+            records++;
+            if (record.size() < 2 || record.size() > 3) {
+                throw new IllegalArgumentException("Expected username,age[,teamName] at record " + records + " but was " + record);
+            }
+            try {
+                return new MemberImportRow(record.get(0), Integer.parseInt(record.get(1).trim()),
+                        record.size() == 3 ? record.get(2) : null);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid age at record " + records + ": " + record.get(1), e);
+            }
+        }
+    }
+
+    /**
+     * 큐에서 묶음을 꺼내 트랜잭션 하나로 저장한다. END를 꺼내면 저장한 row 수를 반환한다.
+     * 트랜잭션이 롤백되면 그 안에서 만든 팀 id도 맵에 남지만, 예외로 import가 끝나므로 다시 쓰이지 않는다.
+     */
+    private class Writer implements Callable<Long> {
+
+        private final BlockingQueue<List<MemberImportRow>> queue;
+        private final long start;
+        private final Map<String, Long> teamIds = new HashMap<>();
+        private volatile boolean aborted;
+
+        Writer(BlockingQueue<List<MemberImportRow>> queue, long start) {
+            this.queue = queue;
+            this.start = start;
+        }
+
+        @Override
+        public Long call() throws InterruptedException {
+            long rows = 0;
+            while (true) {
+                List<MemberImportRow> chunk = queue.take();
+                if (chunk == END || aborted) {
+                    return rows;
+                }
+
+                long saved = transaction.execute(status -> save(chunk));
+
+                if ((rows + saved) / progressInterval > rows / progressInterval) {
+                    log.info("member import in progress: {}", new BatchWriteResult(rows + saved, System.nanoTime() - start));
+                }
+                rows += saved;
+            }
+        }
+
+        private long save(List<MemberImportRow> chunk) {
+            List<Member> members = new ArrayList<>(chunk.size());
+            for (MemberImportRow row : chunk) {
+                Member member = new Member(row.getUsername(), row.getAge());
+                if (hasText(row.getTeamName())) {
+                    Long teamId = teamIds.computeIfAbsent(row.getTeamName(), this::findOrCreateTeam);
+                    member.setTeam(em.getReference(Team.class, teamId));
+                }
+                members.add(member);
+            }
+            return memberJpaRepository.saveAll(members).getRows();
+        }
+
+        private Long findOrCreateTeam(String name) {
+            return teamRepository.findFirstByName(name)
+                    .orElseGet(() -> teamRepository.save(new Team(name)))
+                    .getId();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package me.iseunghan.lecturequerydsl.app;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * /v1/members/sse 전용 스레드. 스트림 하나가 스레드와 커넥션을 끝날 때까지(최대 SSE 타임아웃) 잡고 있으므로
+ * 공용 taskExecutor와 나눠서 maxConcurrent개로 제한하고, 모두 사용 중이면 큐에 쌓지 않고 바로 거절한다. (컨트롤러는 503으로 응답한다)
+ * 이 커넥션들은 ReadOnlyQueryExecutor가 커넥션 풀을 나눌 때 미리 빼둔다. (member.sse.max-concurrent)
+ */
+@Component
+public class MemberSseExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    public MemberSseExecutor(@Value("${member.sse.max-concurrent:2}") int maxConcurrent) {
+        Assert.isTrue(maxConcurrent > 0, "Max concurrent must be greater than zero!");
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "member-sse-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * @throws RejectedExecutionException 이미 maxConcurrent개의 스트림이 실행 중인 경우
+     */
+    public void execute(Runnable stream) {
+        try {
+            executor.execute(stream);
+        } catch (RejectedExecutionException e) {
+            throw new RejectedExecutionException("Too many concurrent member SSE streams!", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,228 @@
+package me.iseunghan.lecturequerydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.repository.MemberBatchInsertEvent;
+import me.iseunghan.lecturequerydsl.repository.MemberBulkChangedEvent;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static me.iseunghan.lecturequerydsl.repository.MemberSearchCondMatcher.matches;
+
+/**
+ * 정규화된 MemberSearchCond를 키로 쓰는 캐시.
+ * Member, Team의 insert/update/delete 이벤트를 받아서 결과가 바뀔 수 있는 조건의 엔트리만 무효화한다.
+ * 팀 이름이 바뀌거나 팀이 삭제되면, 그 팀 이름으로 검색한 엔트리와 값에 그 팀이 들어있는 엔트리(containsTeam)를 무효화한다.
+ *
+ * 주의! 이벤트는 flush 시점에 발생하기 때문에, 커밋 전에 다른 트랜잭션이 이전 값을 다시 캐싱할 수 있다.
+ * 그래서 트랜잭션이 끝난 뒤(afterCompletion)에 한번 더 무효화한다.
+ * 조회 중인 값은 asMap()에 보이지 않아 무효화되지 않으므로, 무효화할 때마다 세대(generation)를 올리고
+ * 조회하는 동안 세대가 바뀌었으면 조회한 값은 반환만 하고 캐시에서 뺀다.
+ */
+public abstract class AbstractMemberSearchCache<V> implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final int MAX_PENDING_PREDICATES = 64;
+
+    private final Cache<MemberSearchCond, V> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    protected AbstractMemberSearchCache(Cache<MemberSearchCond, V> cache) {
+        this.cache = cache;
+    }
+
+    protected Cache<MemberSearchCond, V> getCache() {
+        return cache;
+    }
+
+    /**
+     * 읽기/쓰기 트랜잭션 안에서는 커밋되지 않은 데이터를 읽을 수 있으므로 캐시를 거치지 않는다.
+     */
+    public V get(MemberSearchCond cond, Supplier<V> loader) {
+        if (!isCacheable()) {
+            return loader.get();
+        }
+        MemberSearchCond key = cond.normalize();
+        long loadedAt = generation.get();
+        boolean[] loaded = {false};
+        V value = cache.get(key, k -> {
+            loaded[0] = true;
+            return loader.get();
+        });
+        if (loaded[0] && value != null && generation.get() != loadedAt) {
+            cache.asMap().remove(key, value);
+        }
+        return value;
+    }
+
+    public void invalidateAll() {
+        invalidateIf(cond -> true);
+    }
+
+    public void invalidateIf(Predicate<MemberSearchCond> affected) {
+        invalidateEntriesIf((cond, value) -> affected.test(cond));
+    }
+
+    /**
+     * 값에 teamId 팀의 정보(팀 이름 등)가 들어있는지. 들어있다면 팀이 바뀔 때 같이 무효화된다.
+     */
+    protected boolean containsTeam(V value, Long teamId) {
+        return false;
+    }
+
+    /**
+     * 트랜잭션이 끝날 때 전체를 무효화하기로 했으면 지금은 캐시를 훑지 않는다. (row마다 캐시 전체를 훑지 않도록)
+     */
+    private void invalidateEntriesIf(BiPredicate<MemberSearchCond, V> affected) {
+        generation.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !pending().add(affected)) {
+            return;
+        }
+        cache.asMap().entrySet().removeIf(entry -> affected.test(entry.getKey(), entry.getValue()));
+    }
+
+    private PendingInvalidation pending() {
+        PendingInvalidation pending = (PendingInvalidation) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingInvalidation();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * 벌크 연산은 어떤 row가 바뀌었는지 알 수 없으므로 (update는 바뀐 후의 값도 모른다) 전체를 무효화한다.
+     */
+    @EventListener
+    public void onBulkChanged(MemberBulkChangedEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * 대량 insert는 트랜잭션이 끝날 때 한번만 전체를 무효화한다. 그 사이 row마다 오는 insert 이벤트는 캐시를 훑지 않는다.
+     */
+    @EventListener
+    public void onBatchInsert(MemberBatchInsertEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAll();
+            return;
+        }
+        generation.incrementAndGet();
+        pending().invalidateAllOnCompletion();
+    }
+
+    private boolean isCacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        // Team insert는 아직 소속 member가 없으므로 결과에 영향이 없다.
+        if (event.getEntity() instanceof Member member) {
+            invalidateIf(cond -> matches(cond, member));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object[] oldState = event.getOldState();
+        if (event.getEntity() instanceof Member member) {
+            if (oldState == null) {     // merge 등으로 이전 상태를 모르는 경우
+                invalidateAll();
+                return;
+            }
+            String oldUsername = (String) oldState[propertyIndex(event.getPersister(), "username")];
+            int oldAge = (Integer) oldState[propertyIndex(event.getPersister(), "age")];
+            Team oldTeam = (Team) oldState[propertyIndex(event.getPersister(), "team")];
+            invalidateIf(cond -> matches(cond, member) || matches(cond, oldUsername, oldAge, oldTeam));
+        } else if (event.getEntity() instanceof Team team) {
+            // 팀 이름 변경은 해당 팀 이름으로 검색한 결과와, 그 팀 member가 들어있는 결과에 영향을 준다.
+            String oldName = oldState == null ? null : (String) oldState[propertyIndex(event.getPersister(), "name")];
+            if (oldState != null && Objects.equals(oldName, team.getName())) {
+                return;
+            }
+            Long teamId = (Long) event.getId();
+            invalidateEntriesIf((cond, value) -> containsTeam(value, teamId) || (cond.getTeamName() != null
+                    && (oldState == null || cond.getTeamName().equals(oldName) || cond.getTeamName().equals(team.getName()))));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            invalidateIf(cond -> matches(cond, member));
+        } else if (event.getEntity() instanceof Team team) {
+            Long teamId = (Long) event.getId();
+            invalidateEntriesIf((cond, value) -> containsTeam(value, teamId) || Objects.equals(cond.getTeamName(), team.getName()));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static int propertyIndex(EntityPersister persister, String propertyName) {
+        return persister.getEntityMetamodel().getPropertyIndex(propertyName);
+    }
+
+    /**
+     * 트랜잭션 하나에서 발생한 무효화 조건들을 모아뒀다가 트랜잭션이 끝나면 한번에 다시 적용한다.
+     * 대량 insert처럼 조건이 너무 많이 쌓이면 전체 무효화로 바꾼다.
+     */
+    private class PendingInvalidation implements TransactionSynchronization {
+
+        private final List<BiPredicate<MemberSearchCond, V>> predicates = new ArrayList<>();
+        private boolean all;
+
+        /**
+         * @return false면 트랜잭션이 끝날 때 전체를 무효화한다.
+         */
+        boolean add(BiPredicate<MemberSearchCond, V> affected) {
+            if (all) {
+                return false;
+            }
+            if (predicates.size() >= MAX_PENDING_PREDICATES) {
+                invalidateAllOnCompletion();
+                return false;
+            }
+            predicates.add(affected);
+            return true;
+        }
+
+        void invalidateAllOnCompletion() {
+            all = true;
+            predicates.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AbstractMemberSearchCache.this);
+            generation.incrementAndGet();
+            if (all) {
+                cache.invalidateAll();
+                return;
+            }
+            cache.asMap().entrySet().removeIf(entry -> predicates.stream().anyMatch(p -> p.test(entry.getKey(), entry.getValue())));
+        }
+    }
+}
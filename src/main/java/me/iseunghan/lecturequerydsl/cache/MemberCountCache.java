@@ -0,0 +1,22 @@
+package me.iseunghan.lecturequerydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * searchComplexPage의 count 쿼리 결과 캐시. 같은 조건으로 페이지를 넘길 때 count는 한번만 조회한다.
+ */
+@Component
+public class MemberCountCache extends AbstractMemberSearchCache<Long> {
+
+    public MemberCountCache(@Value("${member.cache.count.ttl:5m}") Duration ttl,
+                            @Value("${member.cache.count.maximum-size:10000}") long maximumSize) {
+        super(Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .build());
+    }
+}
@@ -0,0 +1,42 @@
+package me.iseunghan.lecturequerydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * search 결과 캐시. 엔트리 크기는 row 수로 계산하므로 maximum-weight는 캐시 전체에 담을 수 있는 row 수다.
+ * (Caffeine은 W-TinyLFU로 자주 쓰이는 조건을 남긴다)
+ * hit/miss, eviction 지표는 /actuator/metrics의 cache.gets, cache.evictions, cache.eviction.weight (cache=member.search)
+ */
+@Component
+public class MemberSearchResultCache extends AbstractMemberSearchCache<List<MemberTeamDto>> {
+
+    public MemberSearchResultCache(@Value("${member.cache.search.ttl:30s}") Duration ttl,
+                                   @Value("${member.cache.search.maximum-weight:100000}") long maximumWeight,
+                                   MeterRegistry meterRegistry) {
+        super(Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maximumWeight)
+                .weigher((MemberSearchCond cond, List<MemberTeamDto> rows) -> Math.max(rows.size(), 1))
+                .recordStats()
+                .build());
+        CaffeineCacheMetrics.monitor(meterRegistry, getCache(), "member.search");
+    }
+
+    /**
+     * 결과 row마다 팀 이름이 들어있으므로, 팀 이름이 바뀌면 teamName 조건이 없는 결과도 무효화해야 한다.
+     */
+    @Override
+    protected boolean containsTeam(List<MemberTeamDto> rows, Long teamId) {
+        return rows.stream().anyMatch(row -> Objects.equals(row.getTeamId(), teamId));
+    }
+}
@@ -0,0 +1,356 @@
+package me.iseunghan.lecturequerydsl.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import me.iseunghan.lecturequerydsl.dto.TeamStatisticsDto;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.repository.MemberBulkChangedEvent;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static me.iseunghan.lecturequerydsl.entity.QMember.member;
+import static me.iseunghan.lecturequerydsl.entity.QTeam.team;
+
+/**
+ * 팀별 member 수, 나이 합계/최소/최대를 member 전체를 groupBy 하지 않고 변경분만 반영해서 유지한다. 조회는 팀 수만큼만 본다.
+ * - Member insert/update/delete, Team insert/update/delete 이벤트를 모아뒀다가 트랜잭션이 커밋되면 반영한다. (롤백되면 버린다)
+ * - 카운터는 LongAdder라서 여러 트랜잭션이 동시에 커밋해도 경합이 적다.
+ * - 최소/최대는 삭제되면 다시 구할 수 없으므로 나이별 인원수를 두고 인원이 있는 가장 작은/큰 나이를 찾는다.
+ *
+ * 벌크 연산, 직접 실행한 SQL은 이벤트가 없으므로 reconcileInterval마다 실제 groupBy 결과로 다시 맞춘다. (벌크 연산 이벤트는 커밋 직후 바로)
+ * - 변경이 있는 트랜잭션은 첫 이벤트(flush)부터 반영할 때(afterCompletion)까지 읽기 락을 잡고, reconcile은 조회부터 교체까지 쓰기 락을 잡는다.
+ *   그래서 커밋된 변경은 조회 결과에 들어가거나 교체된 집계에 반영되거나 둘 중 하나만 된다.
+ *   (커밋할 때 flush하는 변경은 beforeCommit이 끝난 뒤에 이벤트가 오므로 이벤트를 받을 때 잡는다)
+ * - replica는 늦을 수 있으므로 reconcile은 읽기 전용이 아닌 트랜잭션으로 primary에서 조회한다.
+ *
+ * 주의! reconcile이 member 전체를 groupBy 하는 동안에는 member/team을 바꾸는 트랜잭션이 첫 flush에서 기다린다.
+ * 이미 읽기 락을 잡은 트랜잭션이 끝나야 reconcile이 시작되므로, 같은 트랜잭션에서 reconcile을 호출하면 안 된다.
+ * - 주기적으로 다시 맞추는 스레드는 빈 초기화가 끝난 뒤(afterPropertiesSet)에 시작하고, 빈이 없어질 때 멈춘다.
+ * 팀 이름이 아닌 팀 id별로 집계한다. (이름이 같은 팀은 따로 나온다)
+ */
+@Slf4j
+@Component
+public class TeamStatistics implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener, InitializingBean, DisposableBean {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate primaryTransaction;
+    private final Duration reconcileInterval;
+    private final ReentrantReadWriteLock reconcileLock = new ReentrantReadWriteLock();
+    private ScheduledExecutorService reconciler;
+    private volatile Map<Long, TeamAggregate> teams = new ConcurrentHashMap<>();
+
+    public TeamStatistics(EntityManager em,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${team.statistics.reconcile-interval:5m}") Duration reconcileInterval) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "team-statistics-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = reconcileInterval.toMillis();
+        reconciler.scheduleWithFixedDelay(this::reconcileQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * member가 있는 팀만 팀 이름 순으로 반환한다.
+     */
+    public List<TeamStatisticsDto> findAll() {
+        List<TeamStatisticsDto> result = new ArrayList<>();
+        teams.forEach((teamId, aggregate) -> {
+            TeamStatisticsDto statistics = aggregate.toDto(teamId);
+            if (statistics != null) {
+                result.add(statistics);
+            }
+        });
+        result.sort(Comparator.comparing(TeamStatisticsDto::getTeamName, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(TeamStatisticsDto::getTeamId));
+        return result;
+    }
+
+    /**
+     * 팀별 (팀, 나이) groupBy 결과로 집계를 새로 만들어서 교체한다.
+     *
+     * @return 유지하던 값과 달랐던 팀 수
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int reconcile() {
+        Assert.state(reconcileLock.getReadHoldCount() == 0, "Cannot reconcile in a transaction that changed members or teams!");
+        Map<Long, TeamAggregate> rebuilt = new ConcurrentHashMap<>();
+        int drifted = 0;
+        Lock lock = reconcileLock.writeLock();
+        lock.lock();
+        try {
+            primaryTransaction.executeWithoutResult(status -> {
+                for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                    rebuilt.put(row.get(team.id), new TeamAggregate(row.get(team.name)));
+                }
+                List<Tuple> rows = queryFactory
+                        .select(team.id, member.age, member.count())
+                        .from(member)
+                        .join(member.team, team)
+                        .groupBy(team.id, member.age)
+                        .fetch();
+                for (Tuple row : rows) {
+                    TeamAggregate aggregate = rebuilt.computeIfAbsent(row.get(team.id), teamId -> new TeamAggregate(null));
+                    aggregate.add(row.get(member.age), row.get(member.count()));
+                }
+            });
+
+            Map<Long, TeamAggregate> previous = teams;
+            teams = rebuilt;
+
+            for (Map.Entry<Long, TeamAggregate> entry : rebuilt.entrySet()) {
+                TeamAggregate before = previous.get(entry.getKey());
+                if (!Objects.equals(entry.getValue().toDto(entry.getKey()), before == null ? null : before.toDto(entry.getKey()))) {
+                    drifted++;
+                }
+            }
+            for (Map.Entry<Long, TeamAggregate> entry : previous.entrySet()) {
+                if (!rebuilt.containsKey(entry.getKey()) && entry.getValue().toDto(entry.getKey()) != null) {
+                    drifted++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (drifted > 0) {
+            log.warn("team statistics drifted for {} teams, reconciled", drifted);
+        }
+        return drifted;
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("team statistics reconcile failed", e);
+        }
+    }
+
+    /**
+     * 벌크 연산은 어떤 row가 바뀌었는지 알 수 없으므로 커밋 후 바로 다시 맞춘다.
+     */
+    @EventListener
+    public void onBulkChanged(MemberBulkChangedEvent event) {
+        onCommit(() -> reconciler.execute(this::reconcileQuietly));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member inserted) {
+            Long teamId = teamId(inserted.getTeam());
+            int age = inserted.getAge();
+            onCommit(() -> add(teamId, age, 1));
+        } else if (event.getEntity() instanceof Team inserted) {
+            Long teamId = (Long) event.getId();
+            String name = inserted.getName();
+            onCommit(() -> rename(teamId, name));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object[] oldState = event.getOldState();
+        if (event.getEntity() instanceof Member updated) {
+            if (oldState == null) {     // merge 등으로 이전 상태를 모르는 경우
+                onCommit(() -> reconciler.execute(this::reconcileQuietly));
+                return;
+            }
+            Long oldTeamId = teamId((Team) oldState[propertyIndex(event.getPersister(), "team")]);
+            int oldAge = (Integer) oldState[propertyIndex(event.getPersister(), "age")];
+            Long newTeamId = teamId(updated.getTeam());
+            int newAge = updated.getAge();
+            if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+                return;
+            }
+            onCommit(() -> {
+                add(oldTeamId, oldAge, -1);
+                add(newTeamId, newAge, 1);
+            });
+        } else if (event.getEntity() instanceof Team updated) {
+            Long teamId = (Long) event.getId();
+            String name = updated.getName();
+            onCommit(() -> rename(teamId, name));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Object[] deletedState = event.getDeletedState();
+            Long teamId = teamId((Team) deletedState[propertyIndex(event.getPersister(), "team")]);
+            int age = (Integer) deletedState[propertyIndex(event.getPersister(), "age")];
+            onCommit(() -> add(teamId, age, -1));
+        } else if (event.getEntity() instanceof Team) {
+            Long teamId = (Long) event.getId();
+            onCommit(() -> teams.remove(teamId));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void destroy() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    /**
+     * team이 없는 member는 member join team 집계에 포함되지 않는다.
+     */
+    private void add(Long teamId, int age, long delta) {
+        if (teamId != null) {
+            teams.computeIfAbsent(teamId, id -> new TeamAggregate(null)).add(age, delta);
+        }
+    }
+
+    private void rename(Long teamId, String name) {
+        teams.computeIfAbsent(teamId, id -> new TeamAggregate(name)).name = name;
+    }
+
+    private void onCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Lock lock = reconcileLock.readLock();
+            lock.lock();
+            try {
+                change.run();
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+            pending.lock();
+        }
+        pending.changes.add(change);
+    }
+
+    /**
+     * 프록시여도 id는 초기화 없이 꺼낼 수 있다.
+     */
+    private static Long teamId(Team team) {
+        return team == null ? null : team.getId();
+    }
+
+    private static int propertyIndex(EntityPersister persister, String propertyName) {
+        return persister.getEntityMetamodel().getPropertyIndex(propertyName);
+    }
+
+    private static class TeamAggregate {
+
+        private volatile String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder ageSum = new LongAdder();
+        private final ConcurrentSkipListMap<Integer, LongAdder> ageCounts = new ConcurrentSkipListMap<>();
+
+        TeamAggregate(String name) {
+            this.name = name;
+        }
+
+        void add(int age, long delta) {
+            count.add(delta);
+            ageSum.add(age * delta);
+            ageCounts.computeIfAbsent(age, key -> new LongAdder()).add(delta);
+        }
+
+        /**
+         * member가 없으면 null
+         */
+        TeamStatisticsDto toDto(Long teamId) {
+            long members = count.sum();
+            if (members <= 0) {
+                return null;
+            }
+            return new TeamStatisticsDto(teamId, name, members, (double) ageSum.sum() / members,
+                    firstPresent(ageCounts), firstPresent(ageCounts.descendingMap()));
+        }
+
+        private static int firstPresent(Map<Integer, LongAdder> ageCounts) {
+            for (Map.Entry<Integer, LongAdder> entry : ageCounts.entrySet()) {
+                if (entry.getValue().sum() > 0) {
+                    return entry.getKey();
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * 첫 이벤트에서 잡은 읽기 락은 반영이 끝난 뒤(롤백이면 바로) 푼다. 둘 다 트랜잭션 스레드에서 호출된다.
+     */
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final List<Runnable> changes = new ArrayList<>();
+        private Lock locked;
+
+        void lock() {
+            Lock lock = reconcileLock.readLock();
+            lock.lock();
+            locked = lock;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TeamStatistics.this);
+            try {
+                if (status == STATUS_COMMITTED) {
+                    changes.forEach(Runnable::run);
+                }
+            } finally {
+                if (locked != null) {
+                    locked.unlock();
+                    locked = null;
+                }
+            }
+        }
+    }
+}
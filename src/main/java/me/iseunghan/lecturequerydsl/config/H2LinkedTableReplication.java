@@ -0,0 +1,69 @@
+package me.iseunghan.lecturequerydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 로컬/테스트용 복제 대용. 각 replica(H2)에 primary의 테이블을 LINKED TABLE(읽기 전용)로 연결한다.
+ * replica는 항상 primary의 커밋된 데이터를 읽으므로 지연 없는 동기 복제와 같다.
+ * 스키마는 Hibernate가 primary에 만든 뒤에 연결해야 하므로 EntityManagerFactory 이후에 초기화한다.
+ */
+@Slf4j
+public class H2LinkedTableReplication implements InitializingBean {
+
+    private final ReplicaSet replicaSet;
+    private final DataSourceProperties primaryProperties;
+
+    public H2LinkedTableReplication(ReplicaSet replicaSet, DataSourceProperties primaryProperties) {
+        this.replicaSet = replicaSet;
+        this.primaryProperties = primaryProperties;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        List<String> tables = primaryTables();
+        for (ReplicaSet.Replica replica : replicaSet.getReplicas()) {
+            try (Connection connection = replica.getDataSource().getConnection();
+                 Statement statement = connection.createStatement()) {
+                for (String table : tables) {
+                    statement.execute(linkedTable(table));
+                }
+            }
+            log.info("replica {} linked to primary tables {}", replica.getName(), tables);
+        }
+    }
+
+    private List<String> primaryTables() throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (Connection connection = replicaSet.getPrimary().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "select table_name from information_schema.tables where table_schema = 'PUBLIC' and table_type = 'BASE TABLE'")) {
+            while (rs.next()) {
+                tables.add(rs.getString(1));
+            }
+        }
+        return tables;
+    }
+
+    private String linkedTable(String table) {
+        return "create linked table if not exists \"" + table + "\"("
+                + quote(primaryProperties.determineDriverClassName()) + ", "
+                + quote(primaryProperties.determineUrl()) + ", "
+                + quote(primaryProperties.determineUsername()) + ", "
+                + quote(primaryProperties.determinePassword()) + ", "
+                + "'PUBLIC', " + quote(table) + ") readonly";
+    }
+
+    private static String quote(String value) {
+        return "'" + (value == null ? "" : value.replace("'", "''")) + "'";
+    }
+}
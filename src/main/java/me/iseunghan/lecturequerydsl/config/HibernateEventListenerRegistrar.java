@@ -0,0 +1,37 @@
+package me.iseunghan.lecturequerydsl.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * 스프링 빈으로 등록된 Hibernate 엔티티 이벤트 리스너들을 SessionFactory에 등록한다.
+ */
+@RequiredArgsConstructor
+@Component
+public class HibernateEventListenerRegistrar {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<PostInsertEventListener> postInsertListeners;
+    private final ObjectProvider<PostUpdateEventListener> postUpdateListeners;
+    private final ObjectProvider<PostDeleteEventListener> postDeleteListeners;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        postInsertListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.POST_INSERT, listener));
+        postUpdateListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.POST_UPDATE, listener));
+        postDeleteListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.POST_DELETE, listener));
+    }
+}
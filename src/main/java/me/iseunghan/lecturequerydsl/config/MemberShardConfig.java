@@ -0,0 +1,35 @@
+package me.iseunghan.lecturequerydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * member.shard.enabled=true 이면 member.shard.urls마다 커넥션 풀을 만든다. (드라이버, 계정은 spring.datasource와 같다)
+ */
+@Configuration
+@EnableConfigurationProperties(ShardProperties.class)
+@ConditionalOnProperty(prefix = "member.shard", name = "enabled", havingValue = "true")
+public class MemberShardConfig {
+
+    @Bean
+    public MemberShards memberShards(ShardProperties shardProperties, DataSourceProperties dataSourceProperties) {
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < shardProperties.getUrls().size(); i++) {
+            HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(shardProperties.getUrls().get(i))
+                    .build();
+            dataSource.setPoolName("member-shard" + i);
+            dataSource.setMaximumPoolSize(shardProperties.getPoolSize());
+            dataSources.add(dataSource);
+        }
+        return new MemberShards(dataSources, shardProperties.getQueueCapacity());
+    }
+}
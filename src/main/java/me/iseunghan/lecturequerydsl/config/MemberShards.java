@@ -0,0 +1,111 @@
+package me.iseunghan.lecturequerydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * member를 id 기준으로 나눠 담는 샤드 DB들. member는 member_id % 샤드 수 번째 샤드에, team은 모든 샤드에 복제한다.
+ * 테이블 구조는 JPA 스키마(member, team)와 같다.
+ */
+public class MemberShards implements InitializingBean, DisposableBean {
+
+    private static final List<String> SCHEMA = List.of(
+            "create table if not exists team (id bigint primary key, name varchar(255))",
+            "create index if not exists idx_team_name on team (name)",
+            "create table if not exists member (member_id bigint primary key, username varchar(255), age integer not null, team_id bigint,"
+                    + " constraint fk_member_team foreign key (team_id) references team (id))",
+            "create index if not exists idx_member_age_id on member (age, member_id)",
+            "create index if not exists idx_member_username on member (username)",
+            "create index if not exists idx_member_team_id on member (team_id)"
+    );
+
+    private final List<HikariDataSource> dataSources;
+    private final List<JdbcTemplate> shards;
+    private final ExecutorService executor;
+
+    /**
+     * @param queueCapacity 스레드(샤드 수만큼)가 모두 바쁠 때 기다릴 수 있는 샤드 쿼리 수. 넘으면 scatter가 RejectedExecutionException을 던진다.
+     */
+    public MemberShards(List<HikariDataSource> dataSources, int queueCapacity) {
+        Assert.notEmpty(dataSources, "At least one shard is required!");
+        Assert.isTrue(queueCapacity > 0, "Queue capacity must be greater than zero!");
+        this.dataSources = List.copyOf(dataSources);
+        this.shards = dataSources.stream()
+                .map(JdbcTemplate::new)
+                .toList();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(shards.size(), shards.size(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "member-shard-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        shards.forEach(shard -> SCHEMA.forEach(shard::execute));
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public JdbcTemplate shardOf(long memberId) {
+        return shards.get(Math.floorMod(memberId, shards.size()));
+    }
+
+    public List<JdbcTemplate> all() {
+        return shards;
+    }
+
+    /**
+     * 모든 샤드에 동시에 query를 실행하고, 샤드 순서대로 결과를 모은다.
+     * @throws RejectedExecutionException 대기열이 가득 찬 경우 (이미 보낸 샤드 쿼리는 취소한다)
+     */
+    public <T> List<T> scatter(Function<JdbcTemplate, T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        try {
+            for (JdbcTemplate shard : shards) {
+                futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), executor));
+            }
+        } catch (RejectedExecutionException e) {
+            futures.forEach(future -> future.cancel(false));
+            throw e;
+        }
+        try {
+            return futures.stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,21 @@
+package me.iseunghan.lecturequerydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("datasource.replica")
+public class ReplicaProperties {
+
+    private boolean enabled;
+    private List<String> urls = new ArrayList<>();
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    private boolean h2LinkedTables;     // 로컬/테스트용 복제 대용
+    private Integer maximumPoolSize;    // replica 풀마다의 최대 커넥션 수. 없으면 spring.datasource.hikari.maximum-pool-size
+}
@@ -0,0 +1,122 @@
+package me.iseunghan.lecturequerydsl.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * primary와 replica 커넥션 풀들. replica 상태는 healthCheckInterval마다 커넥션을 얻어서 확인한다.
+ * (p6spy가 DataSource 빈을 감싸기 때문에 풀과 상태는 DataSource가 아닌 이 빈이 가지고 있다)
+ * 상태 확인 스레드는 빈 초기화가 끝난 뒤(afterPropertiesSet)에 시작하고, 빈이 없어질 때 멈춘다.
+ */
+@Slf4j
+public class ReplicaSet implements InitializingBean, DisposableBean {
+
+    @Getter
+    private final DataSource primary;
+    @Getter
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Duration healthCheckInterval;
+    private ScheduledExecutorService healthChecker;
+
+    public ReplicaSet(DataSource primary, List<Replica> replicas, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = healthCheckInterval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 정상인 replica를 돌아가면서 반환한다. 정상인 replica가 없으면 null
+     */
+    public Replica nextHealthy() {
+        List<Replica> healthy = replicas.stream()
+                .filter(Replica::isHealthy)
+                .toList();
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        Replica replica = healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+        replica.reads.increment();
+        return replica;
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.getDataSource().getConnection()) {
+                healthy = connection.isValid(1);
+            } catch (Exception e) {
+                healthy = false;
+            }
+            if (replica.isHealthy() != healthy) {
+                log.warn("replica {} is now {}", replica.getName(), healthy ? "UP" : "DOWN");
+            }
+            replica.setHealthy(healthy);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Getter
+    public static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+        @Getter(AccessLevel.NONE)
+        private final LongAdder reads = new LongAdder();
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void setHealthy(boolean healthy) {
+            this.healthy = healthy;
+        }
+
+        /**
+         * 이 replica로 보낸 읽기 전용 트랜잭션(커넥션) 수
+         */
+        public long getReads() {
+            return reads.sum();
+        }
+    }
+}
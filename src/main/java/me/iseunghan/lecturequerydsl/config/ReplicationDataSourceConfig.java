@@ -0,0 +1,88 @@
+package me.iseunghan.lecturequerydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * datasource.replica.enabled=true 이면 primary + replica 커넥션 풀을 만들고 읽기 전용 트랜잭션을 replica로 보낸다.
+ * 각 풀에는 spring.datasource.hikari.* 설정이 똑같이 적용된다. replica 풀 크기만 datasource.replica.maximum-pool-size로 따로 정할 수 있다.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicationDataSourceConfig {
+
+    @Bean
+    public ReplicaSet replicaSet(DataSourceProperties properties, ReplicaProperties replicaProperties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = hikari(properties, properties.determineUrl(), "primary", binder);
+
+        List<ReplicaSet.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.getUrls().size(); i++) {
+            String name = "replica" + (i + 1);
+            HikariDataSource replica = hikari(properties, replicaProperties.getUrls().get(i), name, binder);
+            if (replicaProperties.getMaximumPoolSize() != null) {
+                replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+            }
+            replicas.add(new ReplicaSet.Replica(name, replica));
+        }
+        return new ReplicaSet(primary, replicas, replicaProperties.getHealthCheckInterval());
+    }
+
+    /**
+     * 실제 커넥션은 첫 SQL을 실행할 때 얻는다. (그때는 트랜잭션의 readOnly 여부가 정해져 있다)
+     */
+    @Bean
+    public DataSource dataSource(ReplicaSet replicaSet) {
+        return new LazyConnectionDataSourceProxy(new ReplicationRoutingDataSource(replicaSet));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "datasource.replica", name = "h2-linked-tables", havingValue = "true")
+    public H2LinkedTableReplication h2LinkedTableReplication(ReplicaSet replicaSet,
+                                                             DataSourceProperties properties,
+                                                             EntityManagerFactory entityManagerFactory) {
+        // entityManagerFactory: primary에 스키마가 만들어진 뒤에 연결하도록 의존성만 건다.
+        return new H2LinkedTableReplication(replicaSet, properties);
+    }
+
+    @Bean
+    public HealthIndicator replicasHealthIndicator(ReplicaSet replicaSet) {
+        return () -> {
+            Health.Builder builder = Health.up();
+            boolean anyUp = false;
+            for (ReplicaSet.Replica replica : replicaSet.getReplicas()) {
+                builder.withDetail(replica.getName(), replica.isHealthy() ? "UP" : "DOWN");
+                builder.withDetail(replica.getName() + ".reads", replica.getReads());
+                anyUp |= replica.isHealthy();
+            }
+            // replica가 모두 내려가도 primary에서 읽을 수 있으므로 DOWN이 아니라 경고만 한다.
+            return anyUp ? builder.build() : builder.status("DEGRADED").build();
+        };
+    }
+
+    private static HikariDataSource hikari(DataSourceProperties properties, String url, String poolName, Binder binder) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+}
@@ -0,0 +1,40 @@
+package me.iseunghan.lecturequerydsl.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 정상인 replica 중 하나로, 나머지는 primary로 보낸다.
+ * 정상인 replica가 없으면 primary에서 읽는다.
+ *
+ * 주의! 트랜잭션 시작 시점에 바로 커넥션을 얻으면 readOnly 여부를 알 수 없으므로 LazyConnectionDataSourceProxy로 감싸서 사용한다.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaSet replicaSet;
+
+    public ReplicationRoutingDataSource(ReplicaSet replicaSet) {
+        this.replicaSet = replicaSet;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, replicaSet.getPrimary());
+        replicaSet.getReplicas().forEach(replica -> targets.put(replica.getName(), replica.getDataSource()));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(replicaSet.getPrimary());
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        ReplicaSet.Replica replica = replicaSet.nextHealthy();
+        return replica == null ? PRIMARY : replica.getName();
+    }
+}
@@ -0,0 +1,19 @@
+package me.iseunghan.lecturequerydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.shard")
+public class ShardProperties {
+
+    private boolean enabled;
+    private List<String> urls = new ArrayList<>();
+    private int poolSize = 5;   // 샤드마다 커넥션 풀 크기
+    private int queueCapacity = 100;    // scatter에서 실행을 기다리는 샤드 쿼리 수. 넘으면 RejectedExecutionException
+}
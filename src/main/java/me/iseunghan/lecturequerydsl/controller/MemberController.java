@@ -1,31 +1,291 @@
 package me.iseunghan.lecturequerydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.iseunghan.lecturequerydsl.app.MemberImporter;
+import me.iseunghan.lecturequerydsl.app.MemberSseExecutor;
+import me.iseunghan.lecturequerydsl.dto.BatchWriteResult;
+import me.iseunghan.lecturequerydsl.dto.EstimatedPage;
+import me.iseunghan.lecturequerydsl.dto.KeysetSlice;
 import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamColumns;
 import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import me.iseunghan.lecturequerydsl.dto.StreamCompletionDto;
 import me.iseunghan.lecturequerydsl.repository.MemberJpaRepository;
 import me.iseunghan.lecturequerydsl.repository.MemberRepository;
+import me.iseunghan.lecturequerydsl.repository.MemberTestRepository;
+import me.iseunghan.lecturequerydsl.repository.MemberUsernameIndex.UsernameMatch;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
 
+@Slf4j
 @RequiredArgsConstructor
 @RestController
 public class MemberController {
 
+    private static final int STREAM_FETCH_SIZE = 1000;
+    private static final int MAX_USERNAME_SEARCH_LIMIT = 1000;
+    private static final long SSE_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+    private static final long SSE_INITIALIZE_TIMEOUT_SECONDS = 10;
+    private static final int EXPORT_FETCH_SIZE = 10_000;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberTestRepository memberTestRepository;
+    private final ObjectMapper objectMapper;
+    private final MemberSseExecutor sseExecutor;
+    private final MemberImporter memberImporter;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> findMembers(MemberSearchCond cond) {
         return memberJpaRepository.dynamicSearchMember_WhereParams(cond);
     }
 
+    /**
+     * /v1/members와 같은 응답이지만, 서버에서는 DTO 리스트 대신 컬럼 배열에 담아서 직렬화한다. (대량 조회용)
+     */
+    @GetMapping("/v1/members/columns")
+    public MemberTeamColumns findMembersColumns(MemberSearchCond cond) {
+        return memberJpaRepository.searchMember_Columns(cond, STREAM_FETCH_SIZE);
+    }
+
+    /**
+     * username 부분 검색. 나머지 조건은 /v1/members와 같다. id 순으로 최대 limit(1 ~ 1000)개, 다음 페이지는 마지막 memberId를 afterId로 넘긴다.
+     * ex) /v1/members/username?keyword=ber1&match=CONTAINS&teamName=teamA&limit=100&afterId=120
+     */
+    @GetMapping("/v1/members/username")
+    public List<MemberTeamDto> findMembersByUsername(MemberSearchCond cond,
+                                                     @RequestParam String keyword,
+                                                     @RequestParam(defaultValue = "PREFIX") UsernameMatch match,
+                                                     @RequestParam(required = false) Long afterId,
+                                                     @RequestParam(defaultValue = "100") int limit) {
+        Assert.isTrue(limit > 0 && limit <= MAX_USERNAME_SEARCH_LIMIT, "limit must be between 1 and " + MAX_USERNAME_SEARCH_LIMIT + "!");
+        return memberRepository.searchByUsername(keyword, match, cond, afterId, limit);
+    }
+
+    /**
+     * 팀마다 같은 조건으로 동시에 조회해서 팀 이름별로 묶어 내려준다.
+     * ex) /v1/members/by-team?teamName=teamA&teamName=teamB&ageGoe=20
+     */
+    @GetMapping("/v1/members/by-team")
+    public CompletableFuture<Map<String, List<MemberTeamDto>>> findMembersByTeam(MemberSearchCond cond,
+                                                                                @RequestParam("teamName") List<String> teamNames) {
+        Map<String, CompletableFuture<List<MemberTeamDto>>> searches = new LinkedHashMap<>();
+        for (String teamName : teamNames) {
+            MemberSearchCond teamCond = cond.normalize();
+            teamCond.setTeamName(teamName);
+            searches.put(teamName, memberRepository.searchAsync(teamCond));
+        }
+
+        return CompletableFuture.allOf(searches.values().toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    Map<String, List<MemberTeamDto>> result = new LinkedHashMap<>();
+                    searches.forEach((teamName, search) -> result.put(teamName, search.join()));
+                    return result;
+                });
+    }
+
+    /**
+     * /v1/members와 같은 조건이지만, 조회하는 동시에 한 줄에 하나씩(NDJSON) 응답으로 내려보낸다.
+     */
+    @GetMapping(value = "/v1/members/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamMembers(MemberSearchCond cond, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        memberJpaRepository.streamSearchMember_WhereParams(cond, STREAM_FETCH_SIZE, dto -> {
+            try {
+                writer.writeValue(out, dto);
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+
+    /**
+     * /v1/members와 같은 조건의 전체 결과를 gzip으로 압축한 CSV 파일(members.csv.gz)로 내려받는다. (/v2/members를 페이지마다 호출하는 대신)
+     * 커서 하나로 읽으면서 바로 응답에 쓰기 때문에 결과가 많아도 힙 사용량이 늘지 않는다.
+     */
+    @GetMapping(value = "/v1/members/export", produces = "application/gzip")
+    public void exportMembers(MemberSearchCond cond, HttpServletResponse response) throws IOException {
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("members.csv.gz").build().toString());
+
+        long start = System.nanoTime();
+        long rows;
+        try (GZIPOutputStream gzip = new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE)) {
+            rows = memberJpaRepository.exportMember_Csv(cond, EXPORT_FETCH_SIZE, gzip);
+        }
+        long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 1);
+        log.info("member export: {} rows in {} ms ({} rows/sec)", rows, elapsedMillis, rows * 1000 / elapsedMillis);
+    }
+
+    /**
+     * CSV(text/csv: username,age,teamName) 또는 NDJSON 요청 본문을 읽으면서 member를 일괄 등록한다. 없는 팀은 만든다.
+     * ex) curl -X POST -H 'Content-Type: text/csv' --data-binary @members.csv /v1/members/import
+     */
+    @PostMapping(value = "/v1/members/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public BatchWriteResult importMembers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                          HttpServletRequest request) throws IOException {
+        MemberImporter.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON) ?
+                MemberImporter.Format.NDJSON : MemberImporter.Format.CSV;
+        return memberImporter.importMembers(request.getInputStream(), format);
+    }
+
+    /**
+     * /v1/members와 같은 조건으로 조회하면서 chunkSize개씩 "chunk" 이벤트로 내려보내고, 마지막에 "complete" 이벤트(row 수, 소요 시간)를 보낸다.
+     * send는 클라이언트가 받아가는 만큼만 진행되므로(소켓 버퍼가 차면 블로킹) 느린 클라이언트면 DB 스트림도 그만큼 천천히 읽는다.
+     * 스트림마다 SSE 전용 스레드(MemberSseExecutor)와 커넥션을 하나씩 사용하고, 모두 사용 중이면 503으로 응답한다.
+     * emitter는 응답이 준비되기 전에 보낸 이벤트를 모두 버퍼에 담으므로, 응답이 준비된 뒤에 DB를 읽기 시작한다.
+     * 타임아웃, 연결 끊김 등으로 emitter가 먼저 끝나면 다음 row에서 DB 스트림을 멈추고 스레드와 커넥션을 돌려준다.
+     */
+    @GetMapping(value = "/v1/members/sse", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter sseMembers(MemberSearchCond cond, @RequestParam(defaultValue = "100") int chunkSize) {
+        Assert.isTrue(chunkSize > 0, "chunkSize must be greater than zero!");
+
+        ReadyAwareSseEmitter emitter = new ReadyAwareSseEmitter(SSE_TIMEOUT_MILLIS);
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(e -> closed.set(true));
+        emitter.onCompletion(() -> closed.set(true));
+        sseExecutor.execute(() -> {
+            long start = System.nanoTime();
+            List<MemberTeamDto> chunk = new ArrayList<>(chunkSize);
+            try {
+                emitter.awaitReady();
+                long rows = memberJpaRepository.streamSearchMember_WhereParams(cond, STREAM_FETCH_SIZE, dto -> {
+                    if (closed.get()) {
+                        throw new CancellationException("SSE stream closed");
+                    }
+                    chunk.add(dto);
+                    if (chunk.size() == chunkSize) {
+                        sendChunk(emitter, chunk);
+                        chunk.clear();
+                    }
+                });
+                if (!chunk.isEmpty()) {
+                    sendChunk(emitter, chunk);
+                }
+                emitter.send(SseEmitter.event()
+                        .name("complete")
+                        .data(new StreamCompletionDto(rows, System.nanoTime() - start), MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (Exception e) {     // 클라이언트가 연결을 끊으면 send에서 IOException이 발생하고 스트림도 닫힌다.
+                if (closed.get()) {
+                    log.debug("member sse stream stopped after the emitter was closed", e);
+                    return;
+                }
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * 핸들러가 응답을 준비하면(extendResponse) 바로 뒤에 initialize가 호출되므로, 그 전까지 DB를 읽지 않고 기다리기 위해 사용한다.
+     */
+    private static class ReadyAwareSseEmitter extends SseEmitter {
+
+        private final CountDownLatch ready = new CountDownLatch(1);
+
+        ReadyAwareSseEmitter(long timeout) {
+            super(timeout);
+        }
+
+        @Override
+        protected void extendResponse(ServerHttpResponse outputMessage) {
+            super.extendResponse(outputMessage);
+            ready.countDown();
+        }
+
+        void awaitReady() throws InterruptedException {
+            if (!ready.await(SSE_INITIALIZE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("SSE response was not initialized in time!");
+            }
+        }
+    }
+
+    private static void sendChunk(SseEmitter emitter, List<MemberTeamDto> chunk) {
+        try {
+            // 초기화 직전에 보낸 이벤트는 버퍼에 담길 수 있으므로 사본을 넘긴다.
+            emitter.send(SseEmitter.event()
+                    .name("chunk")
+                    .data(List.copyOf(chunk), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> findMembers(MemberSearchCond cond, Pageable pageable) {
         return memberRepository.searchComplexPage(cond, pageable);
     }
+
+    /**
+     * /v2/members와 같지만, 결과가 많으면 totalElements를 추정값으로 내려준다. (approximate: true)
+     */
+    @GetMapping("/v2/members/estimated")
+    public EstimatedPage<MemberTeamDto> findMembersEstimated(MemberSearchCond cond, Pageable pageable) {
+        return memberTestRepository.pageSelect_Estimated(cond, pageable);
+    }
+
+    @GetMapping("/v3/members")
+    public KeysetSlice<MemberTeamDto> findMembers(MemberSearchCond cond,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "20") int size) {
+        return memberTestRepository.keysetSelect(cond, cursor, size);
+    }
+
+    /**
+     * import 전용 스레드, SSE 전용 스레드, 읽기 전용 쿼리 스레드 등이 모두 사용 중이라 거절된 요청. 잠시 후 다시 시도하면 된다.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ProblemDetail rejected(RejectedExecutionException e) {
+        log.warn("request rejected: {}", e.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, retry later.");
+    }
 }
@@ -0,0 +1,67 @@
+package me.iseunghan.lecturequerydsl.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import me.iseunghan.lecturequerydsl.cache.TeamStatistics;
+import me.iseunghan.lecturequerydsl.dto.CacheStatisticsDto;
+import me.iseunghan.lecturequerydsl.dto.TeamDto;
+import me.iseunghan.lecturequerydsl.dto.TeamStatisticsDto;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.repository.TeamRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+@RestController
+public class TeamController {
+
+    private final TeamRepository teamRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TeamStatistics teamStatistics;
+
+    @GetMapping("/teams/{teamId}")
+    public ResponseEntity<TeamDto> findTeam(@PathVariable Long teamId) {
+        return ResponseEntity.of(teamRepository.findById(teamId).map(TeamDto::new));
+    }
+
+    @GetMapping("/teams")
+    public ResponseEntity<TeamDto> findTeam(@RequestParam String name) {
+        return ResponseEntity.of(teamRepository.findFirstByName(name).map(TeamDto::new));
+    }
+
+    /**
+     * 팀별 member 수, 평균/최소/최대 나이. member 테이블을 groupBy 하지 않고 유지 중인 집계를 반환한다.
+     */
+    @GetMapping("/teams/statistics")
+    public List<TeamStatisticsDto> statistics() {
+        return teamStatistics.findAll();
+    }
+
+    /**
+     * entity: Team 엔티티 2차 캐시, query: 쿼리 캐시(findFirstByName)
+     */
+    @GetMapping("/teams/cache-statistics")
+    public Map<String, CacheStatisticsDto> cacheStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        CacheRegionStatistics entity = statistics.getDomainDataRegionStatistics(Team.class.getName());
+
+        return Map.of(
+                "entity", entity == null ?
+                        new CacheStatisticsDto(0, 0, 0) :
+                        new CacheStatisticsDto(entity.getHitCount(), entity.getMissCount(), entity.getPutCount()),
+                "query", new CacheStatisticsDto(
+                        statistics.getQueryCacheHitCount(),
+                        statistics.getQueryCacheMissCount(),
+                        statistics.getQueryCachePutCount())
+        );
+    }
+}
@@ -0,0 +1,21 @@
+package me.iseunghan.lecturequerydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@ToString
+@Getter
+public class BatchWriteResult {
+
+    private final long rows;
+    private final long elapsedMillis;
+    private final long rowsPerSecond;
+
+    public BatchWriteResult(long rows, long elapsedNanos) {
+        this.rows = rows;
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        this.rowsPerSecond = elapsedNanos > 0 ? rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : rows;
+    }
+}
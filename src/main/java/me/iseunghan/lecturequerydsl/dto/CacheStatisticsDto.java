@@ -0,0 +1,22 @@
+package me.iseunghan.lecturequerydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@ToString
+@Getter
+public class CacheStatisticsDto {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final double hitRate;
+
+    public CacheStatisticsDto(long hitCount, long missCount, long putCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        long requestCount = hitCount + missCount;
+        this.hitRate = requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+}
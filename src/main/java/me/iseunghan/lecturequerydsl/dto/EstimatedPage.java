@@ -0,0 +1,21 @@
+package me.iseunghan.lecturequerydsl.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * totalElements가 추정값일 수 있는 페이지. approximate가 true면 추정값이다.
+ */
+@Getter
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private final boolean approximate;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean approximate) {
+        super(content, pageable, total);
+        this.approximate = approximate;
+    }
+}
@@ -0,0 +1,23 @@
+package me.iseunghan.lecturequerydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@ToString
+@Getter
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;    // 다음 페이지 요청 시 그대로 넘겨주면 된다. 마지막 페이지면 null
+
+    public KeysetSlice(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = nextCursor != null;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,17 @@
+package me.iseunghan.lecturequerydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 일괄 등록(/v1/members/import)의 한 줄. teamName이 없으면 팀 없이 등록한다.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberImportRow {
+    private String username;
+    private Integer age;     // 없으면 등록하지 않는다.
+    private String teamName;
+}
@@ -2,10 +2,24 @@ package me.iseunghan.lecturequerydsl.dto;
 
 import lombok.Data;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCond {
     private String username;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    /**
+     * 쿼리에서 무시되는 빈 문자열 조건을 null로 바꾼 사본을 반환한다. (같은 쿼리가 되는 조건은 같은 캐시 키가 되도록)
+     */
+    public MemberSearchCond normalize() {
+        MemberSearchCond normalized = new MemberSearchCond();
+        normalized.setUsername(hasText(username) ? username : null);
+        normalized.setTeamName(hasText(teamName) ? teamName : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        return normalized;
+    }
 }
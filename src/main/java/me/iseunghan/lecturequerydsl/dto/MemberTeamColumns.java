@@ -0,0 +1,147 @@
+package me.iseunghan.lecturequerydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * List&lt;MemberTeamDto&gt; 대신 컬럼별 배열에 담는 결과.
+ * row마다 DTO, 박싱된 Long, 중간 Object[]를 만들지 않고, 중복이 많은 username/teamName은 문자열 테이블의 인덱스로만 저장한다.
+ * JSON은 List&lt;MemberTeamDto&gt;와 같은 모양으로 직렬화된다.
+ */
+@JsonSerialize(using = MemberTeamColumns.Serializer.class)
+public class MemberTeamColumns {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] memberIds;
+    private int[] usernames;
+    private int[] ages;
+    private long[] teamIds;
+    private int[] teamNames;
+    private final StringTable usernameTable = new StringTable();
+    private final StringTable teamNameTable = new StringTable();
+    private int size;
+
+    public MemberTeamColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MemberTeamColumns(int capacity) {
+        int initial = Math.max(capacity, 1);
+        this.memberIds = new long[initial];
+        this.usernames = new int[initial];
+        this.ages = new int[initial];
+        this.teamIds = new long[initial];
+        this.teamNames = new int[initial];
+    }
+
+    public void add(long memberId, String username, int age, long teamId, String teamName) {
+        if (size == memberIds.length) {
+            grow();
+        }
+        memberIds[size] = memberId;
+        usernames[size] = usernameTable.indexOf(username);
+        ages[size] = age;
+        teamIds[size] = teamId;
+        teamNames[size] = teamNameTable.indexOf(teamName);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long memberId(int row) {
+        return memberIds[checkRow(row)];
+    }
+
+    public String username(int row) {
+        return usernameTable.get(usernames[checkRow(row)]);
+    }
+
+    public int age(int row) {
+        return ages[checkRow(row)];
+    }
+
+    public long teamId(int row) {
+        return teamIds[checkRow(row)];
+    }
+
+    public String teamName(int row) {
+        return teamNameTable.get(teamNames[checkRow(row)]);
+    }
+
+    public List<MemberTeamDto> toList() {
+        List<MemberTeamDto> list = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            list.add(new MemberTeamDto(memberIds[row], username(row), ages[row], teamIds[row], teamName(row)));
+        }
+        return list;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+        }
+        return row;
+    }
+
+    private void grow() {
+        int capacity = memberIds.length * 2;
+        memberIds = Arrays.copyOf(memberIds, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        teamIds = Arrays.copyOf(teamIds, capacity);
+        teamNames = Arrays.copyOf(teamNames, capacity);
+    }
+
+    /**
+     * 같은 문자열은 한 번만 저장한다. null은 -1
+     */
+    private static final class StringTable {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int indexOf(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return indexes.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        String get(int index) {
+            return index < 0 ? null : values.get(index);
+        }
+    }
+
+    public static class Serializer extends JsonSerializer<MemberTeamColumns> {
+
+        @Override
+        public void serialize(MemberTeamColumns columns, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartArray(columns, columns.size);
+            for (int row = 0; row < columns.size; row++) {
+                gen.writeStartObject();
+                gen.writeNumberField("memberId", columns.memberIds[row]);
+                gen.writeStringField("username", columns.username(row));
+                gen.writeNumberField("age", columns.ages[row]);
+                gen.writeNumberField("teamId", columns.teamIds[row]);
+                gen.writeStringField("teamName", columns.teamName(row));
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
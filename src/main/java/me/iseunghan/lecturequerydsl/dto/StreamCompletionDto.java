@@ -0,0 +1,19 @@
+package me.iseunghan.lecturequerydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@ToString
+@Getter
+public class StreamCompletionDto {
+
+    private final long rows;
+    private final long elapsedMillis;
+
+    public StreamCompletionDto(long rows, long elapsedNanos) {
+        this.rows = rows;
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+}
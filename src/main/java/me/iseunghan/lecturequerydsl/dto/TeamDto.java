@@ -0,0 +1,16 @@
+package me.iseunghan.lecturequerydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import me.iseunghan.lecturequerydsl.entity.Team;
+
+@Data
+@AllArgsConstructor
+public class TeamDto {
+    private Long teamId;
+    private String teamName;
+
+    public TeamDto(Team team) {
+        this(team.getId(), team.getName());
+    }
+}
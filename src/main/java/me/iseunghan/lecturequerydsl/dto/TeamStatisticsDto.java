@@ -0,0 +1,15 @@
+package me.iseunghan.lecturequerydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TeamStatisticsDto {
+    private Long teamId;
+    private String teamName;
+    private long count;
+    private double avgAge;
+    private int minAge;
+    private int maxAge;
+}
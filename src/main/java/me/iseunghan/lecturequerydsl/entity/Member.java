@@ -10,11 +10,17 @@ import lombok.ToString;
 @Setter
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_age_id", columnList = "age, member_id"),  // Keyset 페이징 (age, member_id), ageGoe/ageLoe 범위 조건
+        @Index(name = "idx_member_username", columnList = "username"),      // usernameEq
+        @Index(name = "idx_member_team_id", columnList = "team_id")         // teamNameEq로 team을 먼저 찾은 뒤 member 조인
+})
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
     @Column(name = "member_id")
-    @Id @GeneratedValue
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 100) // 시퀀스 호출 1번에 id 100개
     private Long id;
     private String username;
     private int age;
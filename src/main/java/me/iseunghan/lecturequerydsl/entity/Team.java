@@ -1,13 +1,20 @@
 package me.iseunghan.lecturequerydsl.entity;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,10 +23,16 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_team_name", columnList = "name")     // teamNameEq
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 거의 바뀌지 않는 작은 테이블이라 2차 캐시에 둔다.
 @ToString(of = {"id", "name"})
 public class Team {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 100)
     private Long id;
     private String name;
 
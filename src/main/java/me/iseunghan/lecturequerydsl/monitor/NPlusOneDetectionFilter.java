@@ -0,0 +1,51 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 요청마다 QueryCounter scope를 열고, 같은 모양의 SQL이 threshold번 이상 실행되면 경고 로그를 남긴다.
+ * fail-on-detection=true 이면 예외를 던진다. (테스트용)
+ * 단, 비동기 요청(SSE, CompletableFuture 반환)이거나 응답이 이미 커밋된(스트리밍 등) 경우에는 예외를 던져도 클라이언트에 전달되지 않으므로 로그만 남긴다.
+ * 비동기 executor 스레드에서 실행된 SQL은 세지 않는다.
+ */
+@Slf4j
+@Component
+public class NPlusOneDetectionFilter extends OncePerRequestFilter {
+
+    private final long threshold;
+    private final boolean failOnDetection;
+
+    public NPlusOneDetectionFilter(@Value("${monitor.n-plus-one.threshold:10}") long threshold,
+                                   @Value("${monitor.n-plus-one.fail-on-detection:false}") boolean failOnDetection) {
+        this.threshold = threshold;
+        this.failOnDetection = failOnDetection;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        QueryCountReport report;
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            filterChain.doFilter(request, response);
+            report = scope.report();
+        }
+
+        Map<String, Long> repeated = report.repeated(threshold);
+        if (repeated.isEmpty()) {
+            return;
+        }
+        log.warn("N+1 의심 [{} {}] total={} repeated={}", request.getMethod(), request.getRequestURI(), report.getTotal(), repeated);
+        if (failOnDetection && !isAsyncStarted(request) && !response.isCommitted()) {
+            report.assertNoRepeatedStatements(threshold);
+        }
+    }
+}
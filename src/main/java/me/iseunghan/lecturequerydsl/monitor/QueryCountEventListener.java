@@ -0,0 +1,20 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy-spring-boot-starter가 JdbcEventListener 빈을 데이터소스 프록시에 등록해준다.
+ * 실행된 SQL은 현재 스레드에 열린 QueryCounter scope로 넘긴다.
+ */
+@Component
+public class QueryCountEventListener extends JdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryCounter.record(statementInformation.getSql(), statementInformation::getSqlWithValues);
+    }
+}
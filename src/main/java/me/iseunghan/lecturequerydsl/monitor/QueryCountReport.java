@@ -0,0 +1,45 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ToString
+@Getter
+public class QueryCountReport {
+
+    private final long total;
+    private final Map<String, Long> countsByShape;  // normalized SQL -> 실행 횟수 (실행 순서 유지)
+
+    QueryCountReport(Map<String, Long> countsByShape) {
+        this.countsByShape = Collections.unmodifiableMap(new LinkedHashMap<>(countsByShape));
+        this.total = countsByShape.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 같은 모양의 SQL이 threshold번 이상 실행됐다면 N+1 의심
+     */
+    public Map<String, Long> repeated(long threshold) {
+        Map<String, Long> repeated = new LinkedHashMap<>();
+        countsByShape.forEach((shape, count) -> {
+            if (count >= threshold) {
+                repeated.put(shape, count);
+            }
+        });
+        return repeated;
+    }
+
+    public boolean hasRepeated(long threshold) {
+        return !repeated(threshold).isEmpty();
+    }
+
+    public void assertNoRepeatedStatements(long threshold) {
+        Map<String, Long> repeated = repeated(threshold);
+        if (!repeated.isEmpty()) {
+            throw new IllegalStateException("N+1 의심: 같은 SQL이 " + threshold + "번 이상 실행되었습니다. " + repeated);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 스레드(요청) 단위로 실행된 SQL을 모양(normalized SQL)별로 센다.
+ *
+ * <pre>
+ * try (QueryCounter.Scope scope = QueryCounter.open()) {
+ *     ...
+ *     scope.report().assertNoRepeatedStatements(5);
+ * }
+ * </pre>
+ * 열린 scope가 없으면 아무것도 기록하지 않는다.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private QueryCounter() {
+    }
+
+    public static Scope open() {
+        return open(false);
+    }
+
+    /**
+     * 모양별 개수와 함께, 바인딩 값이 채워진 SQL 원문도 실행 순서대로 모은다. (EXPLAIN 등 도구용)
+     */
+    public static Scope capture() {
+        return open(true);
+    }
+
+    private static Scope open(boolean captureStatements) {
+        Scope scope = new Scope(CURRENT.get(), captureStatements);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @param sqlWithValues 원문을 모으는 scope가 있을 때만 호출된다.
+     */
+    static void record(String sql, Supplier<String> sqlWithValues) {
+        Scope scope = CURRENT.get();
+        if (scope == null || sql == null || sql.isBlank()) {
+            return;
+        }
+        scope.record(normalize(sql), sqlWithValues);
+    }
+
+    /**
+     * 바인딩 값, 주석, 공백, IN 목록 길이 차이를 지워서 같은 모양의 SQL은 같은 문자열이 되도록 한다.
+     */
+    static String normalize(String sql) {
+        String normalized = COMMENT.matcher(sql).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase();
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private final List<String> statements;
+        private boolean closed;
+
+        private Scope(Scope parent, boolean captureStatements) {
+            this.parent = parent;
+            this.statements = captureStatements ? new ArrayList<>() : null;
+        }
+
+        private void record(String shape, Supplier<String> sqlWithValues) {
+            String statement = null;
+            for (Scope scope = this; scope != null; scope = scope.parent) {
+                scope.counts.merge(shape, 1L, Long::sum);
+                if (scope.statements != null) {
+                    if (statement == null) {
+                        statement = sqlWithValues.get();
+                    }
+                    scope.statements.add(statement);
+                }
+            }
+        }
+
+        public QueryCountReport report() {
+            return new QueryCountReport(counts);
+        }
+
+        /**
+         * capture()로 연 scope에서만 사용할 수 있다.
+         */
+        public List<String> statements() {
+            if (statements == null) {
+                throw new IllegalStateException("Statements are only captured by QueryCounter.capture()");
+            }
+            return Collections.unmodifiableList(statements);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
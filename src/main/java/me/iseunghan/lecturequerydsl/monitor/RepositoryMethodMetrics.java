@@ -0,0 +1,20 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@ToString
+@Getter
+@Builder
+public class RepositoryMethodMetrics {
+
+    private final String repository;
+    private final String method;
+    private final long count;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+    private final double rowsTotal;
+    private final double rowsMax;
+}
@@ -0,0 +1,105 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import me.iseunghan.lecturequerydsl.dto.KeysetSlice;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 레포지토리 메소드마다 지연시간(p50/p99/max)과 조회한 row 수를 기록한다.
+ * row 수는 조회 결과(Collection, Slice, KeysetSlice, Optional)와 @ReturnsRowCount 메소드의 long 반환값만 기록한다.
+ * 저장, 벌크 연산, count 등의 반환값은 조회한 row 수가 아니므로 기록하지 않는다.
+ */
+@Aspect
+@RequiredArgsConstructor
+@Component
+public class RepositoryMetricsAspect {
+
+    static final String LATENCY_METRIC = "repository.method.latency";
+    static final String ROWS_METRIC = "repository.method.rows";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("within(me.iseunghan.lecturequerydsl.repository.MemberJpaRepository)"
+            + " || within(me.iseunghan.lecturequerydsl.repository.MemberRepositoryCustomImpl)"
+            + " || within(me.iseunghan.lecturequerydsl.repository.MemberTestRepository)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        boolean returnsRowCount = ((MethodSignature) joinPoint.getSignature()).getMethod().isAnnotationPresent(ReturnsRowCount.class);
+
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            recordLatency(repository, method, start);
+            throw e;
+        }
+
+        // 비동기 메소드는 반환 시점이 아니라 작업이 끝났을 때 기록한다. (반환한 future는 그대로 돌려준다)
+        if (result instanceof CompletableFuture<?> future) {
+            future.whenComplete((value, e) -> {
+                if (e == null) {
+                    recordRows(repository, method, rowsOf(value, returnsRowCount));
+                }
+                recordLatency(repository, method, start);
+            });
+            return result;
+        }
+
+        recordRows(repository, method, rowsOf(result, returnsRowCount));
+        recordLatency(repository, method, start);
+        return result;
+    }
+
+    private void recordRows(String repository, String method, Long rows) {
+        if (rows != null) {
+            DistributionSummary.builder(ROWS_METRIC)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .register(meterRegistry)
+                    .record(rows);
+        }
+    }
+
+    private void recordLatency(String repository, String method, long start) {
+        Timer.builder(LATENCY_METRIC)
+                .tag("repository", repository)
+                .tag("method", method)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static Long rowsOf(Object result, boolean returnsRowCount) {
+        if (result instanceof Collection<?> collection) {
+            return (long) collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return (long) slice.getNumberOfElements();
+        }
+        if (result instanceof KeysetSlice<?> slice) {
+            return (long) slice.getContent().size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1L : 0L;
+        }
+        if (returnsRowCount && result instanceof Long count) {
+            return count;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,96 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static me.iseunghan.lecturequerydsl.monitor.RepositoryMetricsAspect.LATENCY_METRIC;
+import static me.iseunghan.lecturequerydsl.monitor.RepositoryMetricsAspect.ROWS_METRIC;
+
+/**
+ * GET /actuator/repositories
+ * 레포지토리 메소드별 지연시간/row 수와 Hibernate Statistics 카운터를 함께 보여준다.
+ */
+@RequiredArgsConstructor
+@Component
+@Endpoint(id = "repositories")
+public class RepositoryMetricsEndpoint {
+
+    private final MeterRegistry meterRegistry;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @ReadOperation
+    public Map<String, Object> repositories() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("methods", methods());
+        result.put("hibernate", hibernate());
+        return result;
+    }
+
+    List<RepositoryMethodMetrics> methods() {
+        return meterRegistry.find(LATENCY_METRIC).timers().stream()
+                .map(this::toMetrics)
+                .sorted(Comparator.comparing(RepositoryMethodMetrics::getRepository)
+                        .thenComparing(RepositoryMethodMetrics::getMethod))
+                .toList();
+    }
+
+    private RepositoryMethodMetrics toMetrics(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        DistributionSummary rows = meterRegistry.find(ROWS_METRIC)
+                .tags(timer.getId().getTags())
+                .summary();
+
+        return RepositoryMethodMetrics.builder()
+                .repository(timer.getId().getTag("repository"))
+                .method(timer.getId().getTag("method"))
+                .count(snapshot.count())
+                .p50Millis(percentile(snapshot, 0.5))
+                .p99Millis(percentile(snapshot, 0.99))
+                .maxMillis(snapshot.max(TimeUnit.MILLISECONDS))
+                .rowsTotal(rows == null ? 0 : rows.totalAmount())
+                .rowsMax(rows == null ? 0 : rows.max())
+                .build();
+    }
+
+    private static double percentile(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private Map<String, Long> hibernate() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("entityLoadCount", statistics.getEntityLoadCount());
+        counters.put("entityFetchCount", statistics.getEntityFetchCount());
+        counters.put("collectionLoadCount", statistics.getCollectionLoadCount());
+        counters.put("queryExecutionCount", statistics.getQueryExecutionCount());
+        counters.put("queryExecutionMaxTime", statistics.getQueryExecutionMaxTime());
+        counters.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        counters.put("flushCount", statistics.getFlushCount());
+        counters.put("transactionCount", statistics.getTransactionCount());
+        counters.put("secondLevelCacheHitCount", statistics.getSecondLevelCacheHitCount());
+        counters.put("secondLevelCacheMissCount", statistics.getSecondLevelCacheMissCount());
+        return counters;
+    }
+}
@@ -0,0 +1,17 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 반환값(long)이 조회한 row 수인 메소드. (스트리밍 조회 등)
+ * RepositoryMetricsAspect는 이 어노테이션이 붙은 메소드의 long 반환값만 row 수로 기록한다. 벌크 연산의 변경 row 수, count 등은 기록하지 않는다.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReturnsRowCount {
+}
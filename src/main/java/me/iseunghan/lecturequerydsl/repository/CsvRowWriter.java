@@ -0,0 +1,154 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV(RFC 4180)를 UTF-8로 하나의 바이트 버퍼에 쓰고, 버퍼가 차면 out으로 내보낸다.
+ * 숫자와 문자열을 String, byte[]로 변환하지 않고 버퍼에 바로 인코딩하기 때문에 row 수와 관계없이 추가 할당이 없다.
+ * 쉼표, 큰따옴표, 줄바꿈이 있는 값만 큰따옴표로 감싼다. null은 빈 값으로 쓴다.
+ */
+final class CsvRowWriter {
+
+    private static final int MAX_LONG_LENGTH = 20;
+    private static final byte[] LONG_MIN_VALUE = "-9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    private boolean firstValue = true;
+
+    CsvRowWriter(OutputStream out, int bufferSize) {
+        if (bufferSize < MAX_LONG_LENGTH + 1) {
+            throw new IllegalArgumentException("Buffer size must be greater than " + MAX_LONG_LENGTH + "!");
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    CsvRowWriter value(long value) throws IOException {
+        separator();
+        ensure(MAX_LONG_LENGTH);
+        if (value == Long.MIN_VALUE) {
+            System.arraycopy(LONG_MIN_VALUE, 0, buffer, position, LONG_MIN_VALUE.length);
+            position += LONG_MIN_VALUE.length;
+            return this;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int end = position + digits(value);
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+        return this;
+    }
+
+    CsvRowWriter value(String value) throws IOException {
+        separator();
+        if (value == null) {
+            return this;
+        }
+        boolean quoted = needsQuote(value);
+        if (quoted) {
+            write('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                write('"');
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                writeCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+            } else {
+                writeCodePoint(c);
+            }
+        }
+        if (quoted) {
+            write('"');
+        }
+        return this;
+    }
+
+    void endRow() throws IOException {
+        ensure(2);
+        buffer[position++] = '\r';
+        buffer[position++] = '\n';
+        firstValue = true;
+    }
+
+    /**
+     * 버퍼에 남은 내용을 내보낸다. out은 닫지 않는다.
+     */
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    private void separator() throws IOException {
+        if (!firstValue) {
+            write(',');
+        }
+        firstValue = false;
+    }
+
+    private void writeCodePoint(int codePoint) throws IOException {
+        ensure(4);
+        if (codePoint < 0x80) {
+            buffer[position++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (codePoint >> 6));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            // 짝이 없는 surrogate는 String.getBytes(UTF_8)처럼 '?'로 바꾼다.
+            if (Character.isSurrogate((char) codePoint)) {
+                buffer[position++] = '?';
+                return;
+            }
+            buffer[position++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private void write(char ascii) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) ascii;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private static boolean needsQuote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,185 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathType;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Subgraph;
+import org.hibernate.Hibernate;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 쿼리 결과와 함께 로딩할 연관관계를 선언한다.
+ *
+ * <pre>
+ * FetchPlan.of(member.team)                   // to-one: load graph 힌트 -> fetch join (페이징해도 row 수가 늘지 않는다)
+ * FetchPlan.of(member.team, member.team.members) // 컬렉션: 조회 후 owner들을 batchSize개씩 IN 쿼리로 한 번에 초기화
+ * </pre>
+ * 컬렉션을 fetch join 하면 페이징이 메모리에서 일어나므로, 컬렉션은 본 쿼리와 분리해서 로딩한다.
+ * 결과 N개에 드는 쿼리 수: 1 + 컬렉션 경로 수 * ceil(owner 수 / batchSize)
+ * 컬렉션 경로는 본 쿼리와 같은 영속성 컨텍스트에서 초기화하므로 트랜잭션 안에서 조회해야 한다. (밖이면 IllegalStateException)
+ */
+public final class FetchPlan {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final FetchPlan NONE = new FetchPlan(null, List.of(), List.of(), DEFAULT_BATCH_SIZE);
+
+    private final Class<?> rootType;
+    private final List<List<String>> graphPaths;    // load graph로 fetch join 할 to-one 경로
+    private final List<List<String>> batchPaths;    // 조회 후 IN 쿼리로 초기화할 컬렉션 경로
+    private final int batchSize;
+
+    private FetchPlan(Class<?> rootType, List<List<String>> graphPaths, List<List<String>> batchPaths, int batchSize) {
+        this.rootType = rootType;
+        this.graphPaths = graphPaths;
+        this.batchPaths = batchPaths;
+        this.batchSize = batchSize;
+    }
+
+    public static FetchPlan none() {
+        return NONE;
+    }
+
+    public static FetchPlan of(Path<?>... paths) {
+        Class<?> rootType = null;
+        List<List<String>> graphPaths = new ArrayList<>();
+        List<List<String>> batchPaths = new ArrayList<>();
+
+        for (Path<?> path : paths) {
+            Class<?> type = path.getRoot().getType();
+            Assert.isTrue(rootType == null || rootType.equals(type), "All paths must start from the same root!");
+            rootType = type;
+
+            List<Path<?>> segments = segments(path);
+            Assert.notEmpty(segments, "Path must point to an association: " + path);
+            int collectionIndex = indexOfCollection(segments);
+            Assert.isTrue(collectionIndex < 0 || collectionIndex == segments.size() - 1,
+                    "Paths below a collection are not supported: " + path);
+
+            List<String> names = segments.stream().map(segment -> segment.getMetadata().getName()).toList();
+            if (collectionIndex < 0) {
+                graphPaths.add(names);
+                continue;
+            }
+            if (names.size() > 1) {     // owner는 본 쿼리에서 같이 가져온다.
+                graphPaths.add(names.subList(0, names.size() - 1));
+            }
+            batchPaths.add(names);
+        }
+        return new FetchPlan(rootType, List.copyOf(graphPaths), List.copyOf(batchPaths), DEFAULT_BATCH_SIZE);
+    }
+
+    public FetchPlan batchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "Batch size must be greater than zero!");
+        return new FetchPlan(rootType, graphPaths, batchPaths, batchSize);
+    }
+
+    <T> JPAQuery<T> applyTo(JPAQuery<T> query, EntityManager em) {
+        if (graphPaths.isEmpty()) {
+            return query;
+        }
+        return query.setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, entityGraph(em));
+    }
+
+    /**
+     * 결과 엔티티들의 아직 초기화되지 않은 컬렉션을 owner batchSize개씩 묶어서 fetch join 쿼리로 초기화한다.
+     * 결과를 조회한 영속성 컨텍스트에서 초기화해야 하므로 트랜잭션 안에서만 호출할 수 있다.
+     * (트랜잭션 밖의 공유 EntityManager는 쿼리마다 새 영속성 컨텍스트를 쓰므로 results의 컬렉션은 초기화되지 않는다)
+     */
+    <T> List<T> initialize(List<T> results, EntityManager em) {
+        if (batchPaths.isEmpty()) {
+            return results;
+        }
+        Assert.state(TransactionSynchronizationManager.isActualTransactionActive(),
+                "Collection paths can only be initialized within a transaction!");
+        for (List<String> names : batchPaths) {
+            String attribute = names.get(names.size() - 1);
+            Set<Object> owners = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (T result : results) {
+                Object owner = navigate(result, names.subList(0, names.size() - 1));
+                if (owner != null && !Hibernate.isInitialized(new DirectFieldAccessor(owner).getPropertyValue(attribute))) {
+                    owners.add(owner);
+                }
+            }
+            if (owners.isEmpty()) {
+                continue;
+            }
+
+            String entityName = em.getMetamodel().entity(Hibernate.getClass(owners.iterator().next())).getName();
+            String jpql = "select distinct o from " + entityName + " o left join fetch o." + attribute + " where o in :owners";
+            List<Object> pending = new ArrayList<>(owners);
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                em.createQuery(jpql)
+                        .setParameter("owners", pending.subList(from, Math.min(from + batchSize, pending.size())))
+                        .getResultList();
+            }
+        }
+        return results;
+    }
+
+    private EntityGraph<?> entityGraph(EntityManager em) {
+        EntityGraph<?> graph = em.createEntityGraph(rootType);
+        Map<String, Subgraph<?>> subgraphs = new HashMap<>();
+        for (List<String> names : graphPaths) {
+            Subgraph<?> parent = null;
+            for (int i = 0; i < names.size() - 1; i++) {
+                String prefix = String.join(".", names.subList(0, i + 1));
+                Subgraph<?> current = parent;
+                String name = names.get(i);
+                parent = subgraphs.computeIfAbsent(prefix,
+                        key -> current == null ? graph.addSubgraph(name) : current.addSubgraph(name));
+            }
+            String last = names.get(names.size() - 1);
+            if (parent == null) {
+                graph.addAttributeNodes(last);
+            } else {
+                parent.addAttributeNodes(last);
+            }
+        }
+        return graph;
+    }
+
+    private static Object navigate(Object entity, List<String> names) {
+        Object current = Hibernate.unproxy(entity);
+        for (String name : names) {
+            if (current == null) {
+                return null;
+            }
+            current = Hibernate.unproxy(new DirectFieldAccessor(current).getPropertyValue(name));
+        }
+        return current;
+    }
+
+    private static List<Path<?>> segments(Path<?> path) {
+        LinkedList<Path<?>> segments = new LinkedList<>();
+        for (Path<?> current = path; !current.getMetadata().isRoot(); current = current.getMetadata().getParent()) {
+            Assert.isTrue(current.getMetadata().getPathType() == PathType.PROPERTY, "Only property paths are supported: " + path);
+            segments.addFirst(current);
+        }
+        return segments;
+    }
+
+    private static int indexOfCollection(List<Path<?>> segments) {
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i) instanceof CollectionExpression<?, ?>) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,56 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.util.Assert;
+
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Keyset 페이징에서 마지막으로 읽은 row의 위치(정렬 키 + id).
+ * 클라이언트에게는 Base64로 인코딩된 불투명한 문자열로만 노출한다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class KeysetCursor {
+
+    private static final String DELIMITER = ":";
+
+    private final String sortValue;
+    private final Long id;
+
+    public KeysetCursor(Object sortValue, Long id) {
+        Assert.notNull(sortValue, "Sort value must not be null!");
+        Assert.notNull(id, "Id must not be null!");
+        this.sortValue = sortValue.toString();
+        this.id = id;
+    }
+
+    public String encode() {
+        String raw = id + DELIMITER + sortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(UTF_8));
+    }
+
+    /**
+     * 커서가 비어있으면 첫 페이지를 의미하므로 null을 반환한다.
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (!hasText(cursor)) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+            int idx = raw.indexOf(DELIMITER);
+            Assert.isTrue(idx > 0, "Invalid cursor: " + cursor);
+            return new KeysetCursor(raw.substring(idx + 1), Long.valueOf(raw.substring(0, idx)));
+        } catch (IllegalArgumentException e) {  // NumberFormatException 포함
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+/**
+ * 대량 insert(MemberJpaRepository.saveAll)를 시작할 때 트랜잭션 안에서 발행한다.
+ * row마다 엔티티 이벤트는 그대로 발생하지만, member 데이터를 캐싱하는 쪽에서 row마다 무효화하지 않고 트랜잭션이 끝날 때 한번에 무효화하도록 한다.
+ */
+public class MemberBatchInsertEvent {
+}
@@ -0,0 +1,19 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+
+/**
+ * 벌크 update/delete는 엔티티를 거치지 않기 때문에 Hibernate 엔티티 이벤트가 발생하지 않는다.
+ * 대신 이 이벤트를 발행해서 member 데이터를 캐싱하는 쪽에서 직접 무효화하도록 한다.
+ */
+@ToString
+@Getter
+@RequiredArgsConstructor
+public class MemberBulkChangedEvent {
+
+    private final MemberSearchCond cond;
+    private final long affectedRows;
+}
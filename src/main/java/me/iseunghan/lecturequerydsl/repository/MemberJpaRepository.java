@@ -1,38 +1,93 @@
 package me.iseunghan.lecturequerydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.dto.BatchWriteResult;
 import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamColumns;
 import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
 import me.iseunghan.lecturequerydsl.dto.QMemberTeamDto;
 import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.monitor.ReturnsRowCount;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static me.iseunghan.lecturequerydsl.entity.QMember.member;
 import static me.iseunghan.lecturequerydsl.entity.QTeam.team;
 import static org.springframework.util.StringUtils.hasText;
 
+/**
+ * 조회는 읽기 전용 트랜잭션으로 실행한다. (replica가 켜져 있으면 replica에서 읽는다) 저장하는 메소드만 @Transactional로 덮어쓴다.
+ */
 @Repository
+@Transactional(readOnly = true)
 public class MemberJpaRepository {
 
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryRegistry memberSearchQueries;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em,
+                               MemberSearchQueryRegistry memberSearchQueries,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.memberSearchQueries = memberSearchQueries;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
     }
 
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
 
+    /**
+     * JDBC 배치 insert(hibernate.jdbc.batch_size)로 저장하고, batchSize개마다 flush/clear 해서 영속성 컨텍스트가 계속 커지지 않게 한다.
+     * 주의! clear 하기 때문에 호출 전부터 영속성 컨텍스트에 있던 엔티티(ex. team)도 준영속 상태가 된다.
+     * members를 Iterable로 받기 때문에 전체를 메모리에 올리지 않고 만들면서 저장할 수 있다.
+     * 검색 캐시는 row마다 무효화하지 않고 트랜잭션이 끝날 때 한번만 무효화한다. (MemberBatchInsertEvent)
+     */
+    @Transactional
+    public BatchWriteResult saveAll(Iterable<Member> members) {
+        eventPublisher.publishEvent(new MemberBatchInsertEvent());
+        long start = System.nanoTime();
+        long rows = 0;
+        for (Member member : members) {
+            em.persist(member);
+            if (++rows % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return new BatchWriteResult(rows, System.nanoTime() - start);
+    }
+
     public Optional<Member> findById(Long id) {
         Member member = em.createQuery("select m from Member m where m.id = :id", Member.class)
                 .setParameter("id", id)
@@ -99,46 +154,105 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /**
+     * where 파라미터 방식. 조건 조합(모양)별로 미리 만들어둔 쿼리 템플릿에 값만 바인딩해서 사용한다.
+     */
     public List<MemberTeamDto> dynamicSearchMember_WhereParams(MemberSearchCond cond) {
-        return queryFactory.select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .join(member.team, team)
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        memberAgeGoe(cond.getAgeGoe()),
-                        memberAgeLoe(cond.getAgeLoe())
-                )
+        return memberSearchQueries.contentQuery(cond)
                 .fetch();
     }
 
     /**
-     * Predicate말고 BooleanExpression 타입으로 반환하는 이유는, and(), or() 메소드를 제공해줘서 composition하기 좋음!
+     * 결과를 List로 모으지 않고 JDBC 커서에서 한 row씩 읽어서 consumer에게 넘겨준다. (힙 사용량이 결과 개수와 무관)
+     * Stream은 커넥션이 열려있는 동안만 유효하기 때문에 트랜잭션 안에서 소비까지 끝내고 닫는다.
+     * @return 읽은 row 개수
      */
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ?
-                member.username.eq(username) : null;
+    @ReturnsRowCount
+    @Transactional(readOnly = true)
+    public long streamSearchMember_WhereParams(MemberSearchCond cond, int fetchSize, Consumer<MemberTeamDto> consumer) {
+        long count = 0;
+        try (Stream<MemberTeamDto> stream = memberSearchQueries.contentQuery(cond)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .stream()) {
+            for (Iterator<MemberTeamDto> it = stream.iterator(); it.hasNext(); count++) {
+                consumer.accept(it.next());
+            }
+        }
+        return count;
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ?
-                team.name.eq(teamName) : null;
-    }
+    /**
+     * dynamicSearchMember_WhereParams와 같은 조건, 같은 결과를 ResultSet에서 바로 컬럼 배열(MemberTeamColumns)로 읽는다.
+     * row마다 DTO나 Object[]를 만들지 않기 때문에 대량 조회 시 가비지가 훨씬 적다.
+     * SQL은 MemberSearchSql 참고
+     */
+    @Transactional(readOnly = true)
+    public MemberTeamColumns searchMember_Columns(MemberSearchCond cond, int fetchSize) {
+        Session session = flushedSession();
+        MemberSearchSql sql = MemberSearchSql.of(cond);
+        Object[] params = sql.params();
 
-    private BooleanExpression memberAgeGoe(Integer memberAge) {
-        return Objects.nonNull(memberAge) ?
-                member.age.goe(memberAge) : null;
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.select())) {
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    MemberTeamColumns columns = new MemberTeamColumns(fetchSize);
+                    while (rs.next()) {
+                        columns.add(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getLong(4), rs.getString(5));
+                    }
+                    return columns;
+                }
+            }
+        });
     }
 
-    private BooleanExpression memberAgeLoe(Integer memberAge) {
-        return Objects.nonNull(memberAge) ?
-                member.age.loe(memberAge) : null;
+    /**
+     * searchMember_Columns와 같은 조건, 같은 컬럼을 헤더가 있는 CSV로 out에 바로 쓴다.
+     * forward-only 커서로 fetchSize개씩 읽으면서 ResultSet 값을 버퍼 하나(CsvRowWriter)에 인코딩하므로 DTO도, 결과 리스트도 만들지 않는다.
+     * out은 닫지 않는다.
+     * @return 쓴 row 개수 (헤더 제외)
+     */
+    @ReturnsRowCount
+    @Transactional(readOnly = true)
+    public long exportMember_Csv(MemberSearchCond cond, int fetchSize, OutputStream out) {
+        Session session = flushedSession();
+        MemberSearchSql sql = MemberSearchSql.of(cond);
+        Object[] params = sql.params();
+
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.select(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    CsvRowWriter csv = new CsvRowWriter(out, CSV_BUFFER_SIZE);
+                    csv.value("memberId").value("username").value("age").value("teamId").value("teamName").endRow();
+                    long rows = 0;
+                    while (rs.next()) {
+                        csv.value(rs.getLong(1)).value(rs.getString(2)).value(rs.getInt(3)).value(rs.getLong(4)).value(rs.getString(5)).endRow();
+                        rows++;
+                    }
+                    csv.flush();
+                    return rows;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
+    /**
+     * JDBC로 직접 조회하기 전에 JPQL의 AUTO flush처럼 아직 반영되지 않은 변경을 먼저 내보낸다.
+     */
+    private Session flushedSession() {
+        Session session = em.unwrap(Session.class);
+        if (session.getHibernateFlushMode() != FlushMode.MANUAL) {
+            session.flush();
+        }
+        return session;
+    }
 }
@@ -2,14 +2,47 @@ package me.iseunghan.lecturequerydsl.repository;
 
 import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
 import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import me.iseunghan.lecturequerydsl.repository.MemberUsernameIndex.UsernameMatch;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface MemberRepositoryCustom {
+    /**
+     * 읽기/쓰기 트랜잭션 밖에서는 결과를 캐시한다. (Member, Team 변경 시 영향받는 조건만 무효화) 반환된 리스트는 수정할 수 없다.
+     */
     List<MemberTeamDto> search(MemberSearchCond cond);
 
     Page<MemberTeamDto> searchComplexPage(MemberSearchCond cond, Pageable pageable);
+
+    /**
+     * username이 keyword로 시작하거나(PREFIX) keyword를 포함하는(CONTAINS) member를 id 순으로 조회한다.
+     * 일치하는 id는 MemberUsernameIndex에서 찾고, keyword와 cond의 나머지 조건과 함께 id로 조회한다.
+     * 인덱스는 커밋된 변경만 반영하므로 같은 트랜잭션에서 아직 커밋하지 않은 member는 나오지 않는다.
+     * id가 afterId보다 큰 member를 최대 limit개 반환한다. 다음 페이지는 마지막 memberId를 afterId로 넘긴다. (첫 페이지는 null)
+     */
+    List<MemberTeamDto> searchByUsername(String keyword, UsernameMatch match, MemberSearchCond cond, Long afterId, int limit);
+
     Page<MemberTeamDto> searchComplexPage_Support(MemberSearchCond cond, Pageable pageable);
+
+    /**
+     * search / searchComplexPage를 ReadOnlyQueryExecutor 스레드의 새 읽기 전용 트랜잭션에서 실행한다.
+     * 여러 조건을 동시에 조회한 뒤 합칠 때 사용한다. 호출한 트랜잭션에서 아직 커밋하지 않은 변경은 보이지 않는다.
+     */
+    CompletableFuture<List<MemberTeamDto>> searchAsync(MemberSearchCond cond);
+
+    CompletableFuture<Page<MemberTeamDto>> searchComplexPageAsync(MemberSearchCond cond, Pageable pageable);
+
+    /**
+     * 조건에 맞는 member의 나이를 update 한번으로 amount만큼 더한다.
+     * 영속성 컨텍스트를 모두 비우지 않고, 대상이 되는 관리 중인 Member만 다시 조회(refresh)한다.
+     */
+    long bulkAddAge(MemberSearchCond cond, int amount);
+
+    /**
+     * 조건에 맞는 member를 delete 한번으로 삭제한다. 대상이 되는 관리 중인 Member만 영속성 컨텍스트에서 분리(detach)한다.
+     */
+    long bulkDelete(MemberSearchCond cond);
 }
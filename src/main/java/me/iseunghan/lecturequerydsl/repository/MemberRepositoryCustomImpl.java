@@ -2,85 +2,133 @@ package me.iseunghan.lecturequerydsl.repository;
 
 import com.querydsl.core.QueryResults;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.cache.MemberCountCache;
+import me.iseunghan.lecturequerydsl.cache.MemberSearchResultCache;
 import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
 import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
 import me.iseunghan.lecturequerydsl.dto.QMemberTeamDto;
 import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.repository.MemberUsernameIndex.UsernameMatch;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import static me.iseunghan.lecturequerydsl.entity.QMember.member;
 import static me.iseunghan.lecturequerydsl.entity.QTeam.team;
+import static me.iseunghan.lecturequerydsl.repository.MemberSearchCondMatcher.matches;
 import static org.springframework.util.StringUtils.hasText;
 
+/**
+ * 조회는 읽기 전용 트랜잭션으로 실행한다. (replica가 켜져 있으면 replica에서 읽는다) 벌크 연산만 @Transactional로 덮어쓴다.
+ */
+@Transactional(readOnly = true)
 public class MemberRepositoryCustomImpl extends QuerydslRepositorySupport implements MemberRepositoryCustom {
 
+    private static final int ID_CHUNK_SIZE = 1000;  // in절 하나에 넣는 id 개수
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryRegistry memberSearchQueries;
+    private final MemberCountCache countCache;
+    private final MemberSearchResultCache searchResultCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReadOnlyQueryExecutor readOnlyQueryExecutor;
+    private final MemberUsernameIndex usernameIndex;
 
-    public MemberRepositoryCustomImpl(EntityManager em) {
+    public MemberRepositoryCustomImpl(EntityManager em,
+                                      MemberSearchQueryRegistry memberSearchQueries,
+                                      MemberCountCache countCache,
+                                      MemberSearchResultCache searchResultCache,
+                                      ApplicationEventPublisher eventPublisher,
+                                      ReadOnlyQueryExecutor readOnlyQueryExecutor,
+                                      MemberUsernameIndex usernameIndex) {
         super(Member.class);
+        this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.memberSearchQueries = memberSearchQueries;
+        this.countCache = countCache;
+        this.searchResultCache = searchResultCache;
+        this.eventPublisher = eventPublisher;
+        this.readOnlyQueryExecutor = readOnlyQueryExecutor;
+        this.usernameIndex = usernameIndex;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCond cond) {
-        return selectFromJoinMemberTeam()
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        memberAgeGoe(cond.getAgeGoe()),
-                        memberAgeLoe(cond.getAgeLoe())
-                )
-                .fetch();
-    }
-
-    private JPAQuery<MemberTeamDto> selectFromJoinMemberTeam() {
-        return queryFactory.select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .join(member.team, team);
+        // 캐시된 리스트는 여러 호출자가 공유하므로 수정할 수 없는 리스트로 담는다.
+        return searchResultCache.get(cond, () -> List.copyOf(memberSearchQueries.contentQuery(cond).fetch()));
     }
 
     @Override
     public Page<MemberTeamDto> searchComplexPage(MemberSearchCond cond, Pageable pageable) {
-        List<MemberTeamDto> content = selectFromJoinMemberTeam()
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        memberAgeGoe(cond.getAgeGoe()),
-                        memberAgeLoe(cond.getAgeLoe())
-                )
+        List<MemberTeamDto> content = memberSearchQueries.contentQuery(cond)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        JPAQuery<Long> countQuery = queryFactory
-                .select(member.count())
-                .from(member)
-                .join(member.team, team)
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        memberAgeGoe(cond.getAgeGoe()),
-                        memberAgeLoe(cond.getAgeLoe())
-                );
+        JPAQuery<Long> countQuery = memberSearchQueries.countQuery(cond);
+
+        // 같은 조건으로 페이지만 바꿔가며 조회하는 경우가 많으므로 count는 캐시한다.
+        return PageableExecutionUtils.getPage(content, pageable, () -> countCache.get(cond, countQuery::fetchOne));
+    }
+
+    @Override
+    public List<MemberTeamDto> searchByUsername(String keyword, UsernameMatch match, MemberSearchCond cond, Long afterId, int limit) {
+        Assert.isTrue(limit > 0, "Limit must be greater than zero!");
+        List<Long> ids = usernameIndex.find(keyword, match);
+        if (afterId != null) {
+            int position = Collections.binarySearch(ids, afterId);
+            ids = ids.subList(position >= 0 ? position + 1 : -position - 1, ids.size());
+        }
+        // 인덱스는 벌크 연산 등을 놓칠 수 있으므로 username 조건으로 한번 더 확인한다. (id로 좁힌 뒤라 like도 비싸지 않다)
+        BooleanExpression usernameMatches = switch (match) {
+            case PREFIX -> member.username.startsWith(keyword);
+            case CONTAINS -> member.username.contains(keyword);
+        };
+        // cond의 나머지 조건으로 걸러질 수 있으므로 limit개를 채울 때까지만 id 순으로 chunk를 조회한다.
+        List<MemberTeamDto> result = new ArrayList<>();
+        for (int from = 0; from < ids.size() && result.size() < limit; from += ID_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+            result.addAll(memberSearchQueries.contentQuery(cond)
+                    .where(member.id.in(chunk), usernameMatches)
+                    .orderBy(member.id.asc())
+                    .limit(limit - result.size())
+                    .fetch());
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<List<MemberTeamDto>> searchAsync(MemberSearchCond cond) {
+        return readOnlyQueryExecutor.submit(() -> search(cond));
+    }
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    @Override
+    public CompletableFuture<Page<MemberTeamDto>> searchComplexPageAsync(MemberSearchCond cond, Pageable pageable) {
+        return readOnlyQueryExecutor.submit(() -> searchComplexPage(cond, pageable));
     }
 
     @Override
@@ -106,6 +154,122 @@ public class MemberRepositoryCustomImpl extends QuerydslRepositorySupport implem
         return new PageImpl<>(result.getResults(), pageable, result.getTotal());
     }
 
+    @Override
+    @Transactional
+    public long bulkAddAge(MemberSearchCond cond, int amount) {
+        em.flush();
+        List<Member> affected = managedMembers(cond);
+
+        long count = queryFactory
+                .update(member)
+                .set(member.age, member.age.add(amount))
+                .where(bulkWhere(cond))
+                .execute();
+
+        reload(affected);
+        eventPublisher.publishEvent(new MemberBulkChangedEvent(cond, count));
+        return count;
+    }
+
+    @Override
+    @Transactional
+    public long bulkDelete(MemberSearchCond cond) {
+        em.flush();
+        List<Member> affected = managedMembers(cond);
+
+        long count = queryFactory
+                .delete(member)
+                .where(bulkWhere(cond))
+                .execute();
+
+        for (Member deleted : affected) {
+            Team deletedTeam = deleted.getTeam();
+            if (Hibernate.isInitialized(deletedTeam) && Hibernate.isInitialized(deletedTeam.getMembers())) {
+                deletedTeam.getMembers().remove(deleted);
+            }
+            em.detach(deleted);
+        }
+        eventPublisher.publishEvent(new MemberBulkChangedEvent(cond, count));
+        return count;
+    }
+
+    /**
+     * 벌크 update 대상이었던 member를 준영속으로 만들고 in절(ID_CHUNK_SIZE개씩) 쿼리로 한번에 다시 조회한다. (member마다 refresh하면 N+1)
+     * 호출 전에 가지고 있던 인스턴스는 준영속이 되므로 다시 조회해야 한다. 초기화된 team.members 안의 인스턴스는 새 인스턴스로 바꾼다.
+     */
+    private void reload(List<Member> affected) {
+        affected.forEach(em::detach);
+
+        List<Long> ids = affected.stream().map(Member::getId).toList();
+        Map<Long, Member> reloaded = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+            queryFactory
+                    .selectFrom(member)
+                    .where(member.id.in(chunk))
+                    .fetch()
+                    .forEach(fresh -> reloaded.put(fresh.getId(), fresh));
+        }
+
+        for (Member stale : affected) {
+            Team staleTeam = stale.getTeam();
+            Member fresh = reloaded.get(stale.getId());
+            if (fresh != null && Hibernate.isInitialized(staleTeam) && Hibernate.isInitialized(staleTeam.getMembers())) {
+                int index = staleTeam.getMembers().indexOf(stale);
+                if (index >= 0) {
+                    staleTeam.getMembers().set(index, fresh);
+                }
+            }
+        }
+    }
+
+    /**
+     * 영속성 컨텍스트가 관리 중인 Member 중 벌크 연산 대상이 되는 것만 골라낸다. (flush 이후라 메모리 상태 = DB 상태)
+     * team이 초기화되지 않은 프록시면 팀 이름을 알 수 없으므로, 그런 member만 벌크 연산과 같은 조건으로 DB에서 id를 확인한다.
+     */
+    private List<Member> managedMembers(MemberSearchCond cond) {
+        PersistenceContext persistenceContext = em.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+        List<Member> members = new ArrayList<>();
+        Map<Long, Member> unknownTeams = new HashMap<>();
+        for (Map.Entry<Object, EntityEntry> entry : persistenceContext.reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member managed && matches(cond, managed)) {
+                if (hasText(cond.getTeamName()) && !Hibernate.isInitialized(managed.getTeam())) {
+                    unknownTeams.put(managed.getId(), managed);
+                } else {
+                    members.add(managed);
+                }
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(unknownTeams.keySet());
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+            queryFactory
+                    .select(member.id)
+                    .from(member)
+                    .where(bulkWhere(cond))
+                    .where(member.id.in(chunk))
+                    .fetch()
+                    .forEach(id -> members.add(unknownTeams.get(id)));
+        }
+        return members;
+    }
+
+    /**
+     * update/delete 절에서는 join을 쓸 수 없으므로 팀 이름 조건은 서브쿼리로 바꾼다.
+     * search와 같은 대상(member join team)이 되도록 팀이 없는 member는 제외한다.
+     */
+    private BooleanExpression[] bulkWhere(MemberSearchCond cond) {
+        return new BooleanExpression[]{
+                member.team.isNotNull(),
+                usernameEq(cond.getUsername()),
+                hasText(cond.getTeamName()) ?
+                        member.team.id.in(JPAExpressions.select(team.id).from(team).where(team.name.eq(cond.getTeamName()))) : null,
+                memberAgeGoe(cond.getAgeGoe()),
+                memberAgeLoe(cond.getAgeLoe())
+        };
+    }
+
     /**
      * Predicate말고 BooleanExpression 타입으로 반환하는 이유는, and(), or() 메소드를 제공해줘서 composition하기 좋음!
      */
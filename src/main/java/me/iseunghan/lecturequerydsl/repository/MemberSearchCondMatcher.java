@@ -0,0 +1,43 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import org.hibernate.Hibernate;
+
+import java.util.Objects;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * usernameEq, teamNameEq, memberAgeGoe, memberAgeLoe 조건을 DB가 아닌 메모리의 값에 대해 평가한다.
+ */
+public final class MemberSearchCondMatcher {
+
+    private MemberSearchCondMatcher() {
+    }
+
+    public static boolean matches(MemberSearchCond cond, Member member) {
+        return matches(cond, member.getUsername(), member.getAge(), member.getTeam());
+    }
+
+    /**
+     * member join team(inner join)이기 때문에 team이 없으면 어떤 조건에도 포함되지 않는다.
+     * team이 초기화되지 않은 프록시라면 이름을 알 수 없으므로 teamName 조건은 만족한다고 본다. (보수적으로 판단)
+     */
+    public static boolean matches(MemberSearchCond cond, String username, int age, Team team) {
+        if (team == null) {
+            return false;
+        }
+        if (hasText(cond.getUsername()) && !cond.getUsername().equals(username)) {
+            return false;
+        }
+        if (hasText(cond.getTeamName()) && Hibernate.isInitialized(team) && !cond.getTeamName().equals(team.getName())) {
+            return false;
+        }
+        if (Objects.nonNull(cond.getAgeGoe()) && age < cond.getAgeGoe()) {
+            return false;
+        }
+        return !Objects.nonNull(cond.getAgeLoe()) || age <= cond.getAgeLoe();
+    }
+}
@@ -0,0 +1,132 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import me.iseunghan.lecturequerydsl.dto.QMemberTeamDto;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static me.iseunghan.lecturequerydsl.entity.QMember.member;
+import static me.iseunghan.lecturequerydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCond의 4가지 선택 조건으로 만들어지는 where절은 16가지 모양뿐이다.
+ * 모양마다 Param을 사용한 쿼리 템플릿을 미리 한번만 만들어두고, 요청마다 clone 후 값만 바인딩한다.
+ * 조건 조합을 한 곳에서 관리하기 위한 것이고, where 파라미터 방식보다 빠른지는 측정하지 않았다. (QuerydslPatternBenchmark의 dynamicQuery_*로 비교)
+ */
+@Component
+public class MemberSearchQueryRegistry {
+
+    private static final Param<String> USERNAME = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+    private static final int USERNAME_BIT = 1;
+    private static final int TEAM_NAME_BIT = 1 << 1;
+    private static final int AGE_GOE_BIT = 1 << 2;
+    private static final int AGE_LOE_BIT = 1 << 3;
+    private static final int SHAPE_COUNT = 1 << 4;
+
+    private final EntityManager em;
+    private final List<JPAQuery<MemberTeamDto>> contentTemplates = new ArrayList<>(SHAPE_COUNT);
+    private final List<JPAQuery<Long>> countTemplates = new ArrayList<>(SHAPE_COUNT);
+
+    public MemberSearchQueryRegistry(EntityManager em) {
+        this.em = em;
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            contentTemplates.add(new JPAQuery<Void>()
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")))
+                    .from(member)
+                    .join(member.team, team)
+                    .where(where(shape)));
+            countTemplates.add(new JPAQuery<Void>()
+                    .select(member.count())
+                    .from(member)
+                    .join(member.team, team)
+                    .where(where(shape)));
+        }
+    }
+
+    /**
+     * member join team에 조건이 바인딩된 MemberTeamDto 조회 쿼리. 반환된 쿼리는 호출한 쪽 전용이므로 정렬, 페이징 등을 추가해도 된다.
+     */
+    public JPAQuery<MemberTeamDto> contentQuery(MemberSearchCond cond) {
+        return bind(contentTemplates.get(shapeOf(cond)).clone(em), cond);
+    }
+
+    public JPAQuery<Long> countQuery(MemberSearchCond cond) {
+        return bind(countTemplates.get(shapeOf(cond)).clone(em), cond);
+    }
+
+    /**
+     * 조건만 적용된 member.id 조회 쿼리. (count 쿼리 템플릿의 select만 바꾼 것)
+     */
+    public JPAQuery<Long> idQuery(MemberSearchCond cond) {
+        return countQuery(cond).select(member.id);
+    }
+
+    /**
+     * 조건만 적용된 Member 엔티티 조회 쿼리. 연관관계 로딩은 FetchPlan으로 정한다.
+     */
+    public JPAQuery<Member> entityQuery(MemberSearchCond cond) {
+        return countQuery(cond).select(member);
+    }
+
+    static int shapeOf(MemberSearchCond cond) {
+        int shape = 0;
+        if (hasText(cond.getUsername())) {
+            shape |= USERNAME_BIT;
+        }
+        if (hasText(cond.getTeamName())) {
+            shape |= TEAM_NAME_BIT;
+        }
+        if (Objects.nonNull(cond.getAgeGoe())) {
+            shape |= AGE_GOE_BIT;
+        }
+        if (Objects.nonNull(cond.getAgeLoe())) {
+            shape |= AGE_LOE_BIT;
+        }
+        return shape;
+    }
+
+    private static BooleanExpression[] where(int shape) {
+        return new BooleanExpression[]{
+                (shape & USERNAME_BIT) != 0 ? member.username.eq(USERNAME) : null,
+                (shape & TEAM_NAME_BIT) != 0 ? team.name.eq(TEAM_NAME) : null,
+                (shape & AGE_GOE_BIT) != 0 ? member.age.goe(AGE_GOE) : null,
+                (shape & AGE_LOE_BIT) != 0 ? member.age.loe(AGE_LOE) : null
+        };
+    }
+
+    private static <T> JPAQuery<T> bind(JPAQuery<T> query, MemberSearchCond cond) {
+        int shape = shapeOf(cond);
+        if ((shape & USERNAME_BIT) != 0) {
+            query.set(USERNAME, cond.getUsername());
+        }
+        if ((shape & TEAM_NAME_BIT) != 0) {
+            query.set(TEAM_NAME, cond.getTeamName());
+        }
+        if ((shape & AGE_GOE_BIT) != 0) {
+            query.set(AGE_GOE, cond.getAgeGoe());
+        }
+        if ((shape & AGE_LOE_BIT) != 0) {
+            query.set(AGE_LOE, cond.getAgeLoe());
+        }
+        return query;
+    }
+}
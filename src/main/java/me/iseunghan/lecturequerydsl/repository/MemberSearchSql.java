@@ -0,0 +1,56 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchQueryRegistry와 같은 조건을 JDBC로 직접 실행할 때 쓰는 SQL. (member join team)
+ * 조회 컬럼 순서: member_id, username, age, team_id, team name
+ * 주의! 엔티티 매핑(테이블, 컬럼명)이 바뀌면 같이 바꿔줘야 한다.
+ */
+final class MemberSearchSql {
+
+    private static final String FROM = " from member m join team t on m.team_id = t.id";
+
+    private final String where;
+    private final Object[] params;
+
+    private MemberSearchSql(String where, Object[] params) {
+        this.where = where;
+        this.params = params;
+    }
+
+    static MemberSearchSql of(MemberSearchCond cond) {
+        StringBuilder where = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        appendCondition(where, params, "m.username = ?", hasText(cond.getUsername()) ? cond.getUsername() : null);
+        appendCondition(where, params, "t.name = ?", hasText(cond.getTeamName()) ? cond.getTeamName() : null);
+        appendCondition(where, params, "m.age >= ?", cond.getAgeGoe());
+        appendCondition(where, params, "m.age <= ?", cond.getAgeLoe());
+        return new MemberSearchSql(where.toString(), params.toArray());
+    }
+
+    String select() {
+        return "select m.member_id, m.username, m.age, t.id, t.name" + FROM + where;
+    }
+
+    String count() {
+        return "select count(*)" + FROM + where;
+    }
+
+    Object[] params() {
+        return params.clone();
+    }
+
+    private static void appendCondition(StringBuilder where, List<Object> params, String condition, Object value) {
+        if (value == null) {
+            return;
+        }
+        where.append(params.isEmpty() ? " where " : " and ").append(condition);
+        params.add(value);
+    }
+}
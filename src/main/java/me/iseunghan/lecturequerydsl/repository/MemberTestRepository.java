@@ -1,27 +1,26 @@
 package me.iseunghan.lecturequerydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
+import me.iseunghan.lecturequerydsl.dto.EstimatedPage;
+import me.iseunghan.lecturequerydsl.dto.KeysetSlice;
 import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
 import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
-import me.iseunghan.lecturequerydsl.dto.QMemberTeamDto;
 import me.iseunghan.lecturequerydsl.entity.Member;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Objects;
 
-import static com.querydsl.core.types.ExpressionUtils.count;
 import static me.iseunghan.lecturequerydsl.entity.QMember.member;
-import static me.iseunghan.lecturequerydsl.entity.QTeam.team;
-import static org.springframework.util.StringUtils.hasText;
 
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
-    public MemberTestRepository() {
+    private final MemberSearchQueryRegistry memberSearchQueries;
+
+    public MemberTestRepository(MemberSearchQueryRegistry memberSearchQueries) {
         super(Member.class);
+        this.memberSearchQueries = memberSearchQueries;
     }
 
     public List<Member> basicSelect() {
@@ -36,67 +35,62 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     }
 
     public Page<MemberTeamDto> pageSelect(MemberSearchCond cond, Pageable pageable) {
-        return applyPagination(pageable, query -> query.select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .join(member.team, team)
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        memberAgeGoe(cond.getAgeGoe()),
-                        memberAgeLoe(cond.getAgeLoe())
-                )
-        );
+        return applyPagination(pageable, query -> memberSearchQueries.contentQuery(cond));
     }
 
     public Page<MemberTeamDto> pageSelect_Count(MemberSearchCond cond, Pageable pageable) {
         return applyPagination(pageable,
-                contentQuery -> contentQuery.select(new QMemberTeamDto(
-                                member.id.as("memberId"),
-                                member.username,
-                                member.age,
-                                team.id.as("teamId"),
-                                team.name.as("teamName")))
-                        .from(member)
-                        .join(member.team, team)
-                        .where(
-                                usernameEq(cond.getUsername()),
-                                teamNameEq(cond.getTeamName()),
-                                memberAgeGoe(cond.getAgeGoe()),
-                                memberAgeLoe(cond.getAgeLoe())),
-                countQuery -> countQuery.select(count(member.id))
-                        .from(member)
-                        .join(member.team, team)
-                        .where(
-                                usernameEq(cond.getUsername()),
-                                teamNameEq(cond.getTeamName()),
-                                memberAgeGoe(cond.getAgeGoe()),
-                                memberAgeLoe(cond.getAgeLoe())
-                        )
+                contentQuery -> memberSearchQueries.contentQuery(cond),
+                countQuery -> memberSearchQueries.countQuery(cond)
+        );
+    }
+
+    public Page<MemberTeamDto> pageSelect_ConcurrentCount(MemberSearchCond cond, Pageable pageable) {
+        return applyPaginationWithConcurrentCount(pageable,
+                contentQuery -> memberSearchQueries.contentQuery(cond),
+                countQuery -> memberSearchQueries.countQuery(cond)
         );
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ?
-                member.username.eq(username) : null;
+    /**
+     * member.id만 페이징한 뒤 그 id들의 member join team 프로젝션을 조회한다. 뒤쪽 페이지일수록 pageSelect_Count보다 유리하다.
+     */
+    public Page<MemberTeamDto> pageSelect_DeferredJoin(MemberSearchCond cond, Pageable pageable) {
+        return applyDeferredJoinPagination(pageable, member.id, MemberTeamDto::getMemberId,
+                idQuery -> memberSearchQueries.idQuery(cond),
+                contentQuery -> memberSearchQueries.contentQuery(new MemberSearchCond()),
+                countQuery -> memberSearchQueries.countQuery(cond)
+        );
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ?
-                team.name.eq(teamName) : null;
+    /**
+     * 결과가 많으면(querydsl.pagination.exact-count-threshold 초과) totalElements를 추정값으로 대신한다.
+     */
+    public EstimatedPage<MemberTeamDto> pageSelect_Estimated(MemberSearchCond cond, Pageable pageable) {
+        return applyEstimatedPagination(pageable,
+                contentQuery -> memberSearchQueries.contentQuery(cond),
+                idQuery -> memberSearchQueries.idQuery(cond),
+                member.id
+        );
     }
 
-    private BooleanExpression memberAgeGoe(Integer memberAge) {
-        return Objects.nonNull(memberAge) ?
-                member.age.goe(memberAge) : null;
+    /**
+     * (age, member_id) 순으로 정렬된 Keyset 페이징. cursor가 없으면 첫 페이지를 조회한다.
+     */
+    public KeysetSlice<MemberTeamDto> keysetSelect(MemberSearchCond cond, String cursor, int size) {
+        return applyKeysetPagination(cursor, size, member.age, member.id,
+                dto -> new KeysetCursor(dto.getAge(), dto.getMemberId()),
+                query -> memberSearchQueries.contentQuery(cond)
+        );
     }
 
-    private BooleanExpression memberAgeLoe(Integer memberAge) {
-        return Objects.nonNull(memberAge) ?
-                member.age.loe(memberAge) : null;
+    /**
+     * Member 엔티티를 페이징 조회하면서 fetchPlan에 선언된 연관관계를 같이 로딩한다.
+     */
+    public Page<Member> pageSelect_FetchPlan(MemberSearchCond cond, Pageable pageable, FetchPlan fetchPlan) {
+        return applyPagination(pageable, fetchPlan,
+                contentQuery -> memberSearchQueries.entityQuery(cond),
+                countQuery -> memberSearchQueries.countQuery(cond)
+        );
     }
 }
@@ -0,0 +1,249 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import static me.iseunghan.lecturequerydsl.entity.QMember.member;
+
+/**
+ * username 부분 검색용 메모리 인덱스. DB의 like '%x%'는 인덱스를 쓰지 못해 member 전체를 읽기 때문에, 일치하는 member id만 여기서 찾는다.
+ * - PREFIX: username으로 정렬된 맵(skip list)의 범위 조회
+ * - CONTAINS: 3글자(trigram)마다 member id 목록(posting list)을 두고, 검색어의 trigram 목록들의 교집합을 구한다. (3글자 미만은 전체 username을 본다)
+ *
+ * Member insert/update/delete 이벤트를 모아뒀다가 트랜잭션이 커밋되면 반영하고(롤백되면 버린다), 애플리케이션이 뜰 때 DB에서 다시 만든다.
+ * 다시 만들 때는 replica가 늦을 수 있으므로 읽기 전용이 아닌 트랜잭션으로 primary에서 읽는다.
+ * 그래서 아직 커밋하지 않은 변경은 같은 트랜잭션에서도 찾을 수 없다.
+ * 주의! 벌크 연산, 직접 실행한 SQL은 반영되지 않는다. 찾은 id는 DB에서 keyword 조건과 함께 다시 조회하므로 결과에 틀린 member는 나오지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberUsernameIndex implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final int GRAM = 3;
+
+    public enum UsernameMatch {
+        PREFIX, CONTAINS
+    }
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate primaryTransaction;
+    private volatile Postings postings = new Postings();
+
+    public MemberUsernameIndex(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * keyword와 일치하는 member id (오름차순)
+     */
+    public List<Long> find(String keyword, UsernameMatch match) {
+        Assert.hasLength(keyword, "Keyword must not be empty!");
+        Postings current = postings;
+        List<Long> ids = switch (match) {
+            case PREFIX -> current.startsWith(keyword);
+            case CONTAINS -> current.contains(keyword);
+        };
+        ids.sort(Comparator.naturalOrder());
+        return ids;
+    }
+
+    public int size() {
+        return postings.usernames.size();
+    }
+
+    /**
+     * DB의 member 전체로 인덱스를 새로 만든 뒤 교체한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Postings rebuilt = new Postings();
+        primaryTransaction.executeWithoutResult(status -> {
+            try (Stream<Tuple> rows = queryFactory.select(member.id, member.username).from(member).stream()) {
+                rows.forEach(row -> rebuilt.put(row.get(member.id), row.get(member.username)));
+            }
+        });
+        postings = rebuilt;
+        log.info("member username index rebuilt: {} members", rebuilt.usernames.size());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member inserted) {
+            change((Long) event.getId(), inserted.getUsername());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member updated) {
+            change((Long) event.getId(), updated.getUsername());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            change((Long) event.getId(), null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * username이 null이면 인덱스에서 뺀다.
+     */
+    private void change(Long id, String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Collections.singletonMap(id, username));
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.usernames.put(id, username);
+    }
+
+    /**
+     * rebuild와 같은 락을 잡으므로, 다시 만드는 동안 커밋된 변경은 새 인덱스에 반영된다.
+     */
+    private synchronized void apply(Map<Long, String> usernames) {
+        Postings current = postings;
+        usernames.forEach(current::put);
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static class Postings {
+
+        private final Map<Long, String> usernames = new ConcurrentHashMap<>();
+        private final NavigableMap<String, Set<Long>> byUsername = new ConcurrentSkipListMap<>();
+        private final Map<String, Set<Long>> byGram = new ConcurrentHashMap<>();
+
+        /**
+         * @return 이전 username
+         */
+        String put(Long id, String username) {
+            String previous = username == null ? usernames.remove(id) : usernames.put(id, username);
+            if (Objects.equals(previous, username)) {
+                return previous;
+            }
+            if (previous != null) {
+                unlink(byUsername, previous, id);
+                grams(previous).forEach(gram -> unlink(byGram, gram, id));
+            }
+            if (username != null) {
+                byUsername.computeIfAbsent(username, key -> ConcurrentHashMap.newKeySet()).add(id);
+                grams(username).forEach(gram -> byGram.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id));
+            }
+            return previous;
+        }
+
+        List<Long> startsWith(String prefix) {
+            List<Long> ids = new ArrayList<>();
+            byUsername.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                    .values()
+                    .forEach(ids::addAll);
+            return ids;
+        }
+
+        List<Long> contains(String keyword) {
+            List<Long> ids = new ArrayList<>();
+            if (keyword.length() < GRAM) {
+                byUsername.forEach((username, members) -> {
+                    if (username.contains(keyword)) {
+                        ids.addAll(members);
+                    }
+                });
+                return ids;
+            }
+
+            // 가장 짧은 posting list부터 후보를 줄여나가고, trigram이 모두 있어도 순서가 다를 수 있으므로 username으로 확인한다.
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String gram : grams(keyword)) {
+                Set<Long> list = byGram.get(gram);
+                if (list == null) {
+                    return ids;
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            for (Long id : lists.get(0)) {
+                if (lists.stream().skip(1).allMatch(list -> list.contains(id))) {
+                    String username = usernames.get(id);
+                    if (username != null && username.contains(keyword)) {
+                        ids.add(id);
+                    }
+                }
+            }
+            return ids;
+        }
+
+        private static void unlink(Map<String, Set<Long>> index, String key, Long id) {
+            index.computeIfPresent(key, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * 트랜잭션에서 member마다 마지막으로 바뀐 username. (null: 삭제)
+     */
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final Map<Long, String> usernames = new HashMap<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MemberUsernameIndex.this);
+            if (status == STATUS_COMMITTED) {
+                apply(usernames);
+            }
+        }
+    }
+}
@@ -1,13 +1,26 @@
 package me.iseunghan.lecturequerydsl.repository;
 
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.dto.EstimatedPage;
+import me.iseunghan.lecturequerydsl.dto.KeysetSlice;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
@@ -16,18 +29,34 @@ import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 
+/**
+ * 조회용 지원 클래스라서 하위 클래스의 public 메소드는 모두 읽기 전용 트랜잭션으로 실행한다. (replica가 켜져 있으면 replica에서 읽는다)
+ * 저장하는 메소드를 추가하면 @Transactional로 덮어쓴다.
+ */
 @Repository
+@Transactional(readOnly = true)
 public abstract class Querydsl4RepositorySupport {
 
     private final Class domainClass;
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private ReadOnlyQueryExecutor readOnlyQueryExecutor;
+    private long exactCountThreshold;
+    private long estimateSampleSize;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class Must not be null!");
@@ -46,11 +75,26 @@ public abstract class Querydsl4RepositorySupport {
         this.queryFactory = new JPAQueryFactory(entityManager);
     }
 
+    @Autowired
+    public void setReadOnlyQueryExecutor(ReadOnlyQueryExecutor readOnlyQueryExecutor) {
+        this.readOnlyQueryExecutor = readOnlyQueryExecutor;
+    }
+
+    @Autowired
+    void setEstimatedCountSettings(@Value("${querydsl.pagination.exact-count-threshold:10000}") long exactCountThreshold,
+                                   @Value("${querydsl.pagination.estimate-sample-size:10000}") long estimateSampleSize) {
+        Assert.isTrue(exactCountThreshold >= 0, "Exact count threshold must not be negative!");
+        Assert.isTrue(estimateSampleSize > 0, "Estimate sample size must be greater than zero!");
+        this.exactCountThreshold = exactCountThreshold;
+        this.estimateSampleSize = estimateSampleSize;
+    }
+
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(readOnlyQueryExecutor, "ReadOnlyQueryExecutor must not be null!");
     }
 
     protected JPAQueryFactory getQueryFactory() {
@@ -73,6 +117,21 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    /**
+     * fetchPlan의 to-one 경로는 load graph 힌트로 적용된다. 컬렉션 경로까지 로딩하려면 {@link #fetch(JPAQuery, FetchPlan)}로 조회한다.
+     */
+    protected <T> JPAQuery<T> selectFrom(EntityPath<T> from, FetchPlan fetchPlan) {
+        return fetchPlan.applyTo(selectFrom(from), getEntityManager());
+    }
+
+    /**
+     * fetchPlan에 컬렉션 경로가 있으면 트랜잭션 안에서 호출해야 한다. (FetchPlan 참고)
+     */
+    protected <T> List<T> fetch(JPAQuery<T> query, FetchPlan fetchPlan) {
+        List<T> content = fetchPlan.applyTo(query, getEntityManager()).fetch();
+        return fetchPlan.initialize(content, getEntityManager());
+    }
+
     protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery<T>> query) {
         JPAQuery<T> jpaQuery = query.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
@@ -85,4 +144,201 @@ public abstract class Querydsl4RepositorySupport {
         JPAQuery<Long> countJpaQuery = countQuery.apply(getQueryFactory());
         return PageableExecutionUtils.getPage(content, pageable, countJpaQuery::fetchOne);
     }
+
+    /**
+     * content 쿼리에만 fetchPlan을 적용한다. 컬렉션은 fetch join 하지 않으므로 페이징은 DB에서 그대로 일어난다.
+     * 컬렉션은 content를 조회한 영속성 컨텍스트에서 초기화하므로 트랜잭션 안에서 호출해야 한다. (밖이면 IllegalStateException)
+     */
+    protected <T> Page<T> applyPagination(Pageable pageable, FetchPlan fetchPlan, Function<JPAQueryFactory, JPAQuery<T>> contentQuery, Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
+        JPAQuery<T> contentJpaQuery = contentQuery.apply(getQueryFactory());
+        List<T> content = fetch(getQuerydsl().applyPagination(pageable, contentJpaQuery), fetchPlan);
+        JPAQuery<Long> countJpaQuery = countQuery.apply(getQueryFactory());
+        return PageableExecutionUtils.getPage(content, pageable, countJpaQuery::fetchOne);
+    }
+
+    /**
+     * Deferred join: offset/limit은 좁은 id 쿼리에만 적용하고, 넓은 content 쿼리는 그 페이지의 id들만 조회한다.
+     * offset이 클수록 DB가 건너뛰어야 하는 row가 많아지는데, id만 읽으면 (인덱스만으로 처리되는 경우도 있어) 건너뛰는 비용이 줄어든다.
+     * content는 id 쿼리의 순서대로 다시 정렬해서 반환한다.
+     *
+     * @param idQuery      정렬, 페이징 없이 조건만 적용된 id 조회 쿼리 (pageable의 정렬은 여기에 적용된다)
+     * @param contentQuery 조건 없이 조회 대상만 정한 쿼리여도 된다. idPath.in(ids) 조건이 추가된다.
+     * @param idOf         content row의 id
+     */
+    protected <T> Page<T> applyDeferredJoinPagination(Pageable pageable,
+                                                      NumberPath<Long> idPath,
+                                                      Function<T, Long> idOf,
+                                                      Function<JPAQueryFactory, JPAQuery<Long>> idQuery,
+                                                      Function<JPAQueryFactory, JPAQuery<T>> contentQuery,
+                                                      Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
+        List<Long> ids = getQuerydsl().applyPagination(pageable, idQuery.apply(getQueryFactory())).fetch();
+        List<T> content = fetchInOrder(ids, idPath, idOf, contentQuery);
+        JPAQuery<Long> countJpaQuery = countQuery.apply(getQueryFactory());
+        return PageableExecutionUtils.getPage(content, pageable, countJpaQuery::fetchOne);
+    }
+
+    private <T> List<T> fetchInOrder(List<Long> ids, NumberPath<Long> idPath, Function<T, Long> idOf,
+                                     Function<JPAQueryFactory, JPAQuery<T>> contentQuery) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> positions = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            positions.put(ids.get(i), i);
+        }
+
+        List<T> rows = contentQuery.apply(getQueryFactory())
+                .where(idPath.in(ids))
+                .fetch();
+        List<T> content = new ArrayList<>(rows);
+        content.sort(Comparator.comparingInt(row -> positions.get(idOf.apply(row))));
+        return content;
+    }
+
+    /**
+     * content 쿼리를 실행하는 동안 count 쿼리를 다른 스레드의 읽기 전용 트랜잭션(별도 커넥션)에서 동시에 실행한다.
+     * 주의! count는 호출한 트랜잭션에서 아직 커밋하지 않은 변경을 보지 못한다.
+     * PageableExecutionUtils가 count가 필요없다고 판단하면 결과를 기다리지 않고, 아직 시작 전이라면 취소한다.
+     * 이미 기다리는 요청이 많거나 큐가 가득 차면 (ReadOnlyQueryExecutor.trySubmitAwaited) applyPagination처럼 순서대로 실행한다.
+     */
+    protected <T> Page<T> applyPaginationWithConcurrentCount(Pageable pageable, Function<JPAQueryFactory, JPAQuery<T>> contentQuery, Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
+        if (pageable.isUnpaged()) {     // 전체 조회는 count가 필요없다.
+            return applyPagination(pageable, contentQuery, countQuery);
+        }
+
+        Optional<CompletableFuture<Long>> submitted = readOnlyQueryExecutor.trySubmitAwaited(() -> countQuery.apply(getQueryFactory()).fetchOne());
+        if (submitted.isEmpty()) {
+            return applyPagination(pageable, contentQuery, countQuery);
+        }
+        CompletableFuture<Long> total = submitted.get();
+        try {
+            JPAQuery<T> contentJpaQuery = contentQuery.apply(getQueryFactory());
+            List<T> content = getQuerydsl().applyPagination(pageable, contentJpaQuery).fetch();
+            return PageableExecutionUtils.getPage(content, pageable, () -> join(total));
+        } finally {
+            total.cancel(false);
+        }
+    }
+
+    /**
+     * 전체 개수가 exactCountThreshold 이하면 정확한 값을, 넘어가면 샘플링한 추정값을 totalElements로 사용한다.
+     * 정확한 count 대신 id를 threshold + 1개까지만 읽어보기 때문에 결과가 아무리 많아도 count 비용은 일정하다.
+     *
+     * 추정: 테이블 id 범위의 가운데 구간(estimateSampleSize)에서만 조건에 맞는 개수를 세고, 전체 id 범위 비율만큼 늘린다.
+     * min/max는 PK 인덱스로 바로 구한다. 구간 count는 idQuery 그대로(join, 조건 전부) 실행하되 PK 범위 조건으로 읽는 row를 구간 크기로 제한한다.
+     * 추정값은 이미 확인한 개수(threshold + 1개, 현재 페이지까지의 개수)보다 작아지지 않게 보정한다.
+     *
+     * @param idQuery 정렬, 페이징 없이 조건만 적용된 id 조회 쿼리
+     */
+    protected <T> EstimatedPage<T> applyEstimatedPagination(Pageable pageable,
+                                                           Function<JPAQueryFactory, JPAQuery<T>> contentQuery,
+                                                           Function<JPAQueryFactory, JPAQuery<Long>> idQuery,
+                                                           NumberPath<Long> idPath) {
+        JPAQuery<T> contentJpaQuery = contentQuery.apply(getQueryFactory());
+        List<T> content = getQuerydsl().applyPagination(pageable, contentJpaQuery).fetch();
+
+        boolean[] approximate = {false};
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            long probed = idQuery.apply(getQueryFactory())
+                    .limit(exactCountThreshold + 1)
+                    .fetch()
+                    .size();
+            if (probed <= exactCountThreshold) {
+                return probed;
+            }
+            approximate[0] = true;
+            long seen = Math.max(exactCountThreshold + 1, pageable.getOffset() + content.size());
+            return Math.max(seen, estimateTotal(idQuery, idPath));
+        });
+        return new EstimatedPage<>(page.getContent(), pageable, page.getTotalElements(), approximate[0]);
+    }
+
+    private long estimateTotal(Function<JPAQueryFactory, JPAQuery<Long>> idQuery, NumberPath<Long> idPath) {
+        NumberExpression<Long> minId = idPath.min();
+        NumberExpression<Long> maxId = idPath.max();
+        Tuple range = getQueryFactory()
+                .select(minId, maxId)
+                .from((EntityPath<?>) idPath.getRoot())
+                .fetchOne();
+        long min = range.get(minId);
+        long max = range.get(maxId);
+
+        long span = max - min + 1;
+        long width = Math.min(span, estimateSampleSize);
+        long from = min + (span - width) / 2;
+        Long matched = idQuery.apply(getQueryFactory())
+                .where(idPath.between(from, from + width - 1))
+                .select(idPath.count())
+                .fetchOne();
+        return Math.round((double) matched * span / width);
+    }
+
+    private static long join(CompletableFuture<Long> total) {
+        try {
+            return total.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * offset 대신 (정렬 키, id) 커서 이후의 row만 조회하는 Keyset 페이징.
+     * offset만큼 row를 읽고 버리지 않기 때문에 (sortKey, id) 인덱스가 있다면 몇 번째 페이지든 비용이 같다.
+     * 다음 페이지 존재 여부는 count 쿼리 대신 size + 1개를 조회해서 판단한다.
+     */
+    protected <T, K extends Comparable<?>> KeysetSlice<T> applyKeysetPagination(String cursor, int size,
+                                                                              ComparableExpressionBase<K> sortKey,
+                                                                              NumberPath<Long> idPath,
+                                                                              Function<T, KeysetCursor> cursorOf,
+                                                                              Function<JPAQueryFactory, JPAQuery<T>> query) {
+        Assert.isTrue(size > 0, "Size must be greater than zero!");
+
+        JPAQuery<T> jpaQuery = query.apply(getQueryFactory());
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (after != null) {
+            jpaQuery.where(afterCursor(sortKey, idPath, after));
+        }
+
+        List<T> rows = jpaQuery
+                .orderBy(sortKey.asc(), idPath.asc())
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new KeysetSlice<>(content, size, nextCursor);
+    }
+
+    /**
+     * sortKey > :sortValue or (sortKey = :sortValue and id > :id)
+     */
+    private <K extends Comparable<?>> Predicate afterCursor(ComparableExpressionBase<K> sortKey, NumberPath<Long> idPath, KeysetCursor cursor) {
+        K sortValue = convertSortValue(cursor, sortKey.getType());
+        Expression<K> constant = Expressions.constant(sortValue);
+        return ExpressionUtils.or(
+                ExpressionUtils.predicate(Ops.GT, sortKey, constant),
+                ExpressionUtils.and(
+                        ExpressionUtils.predicate(Ops.EQ, sortKey, constant),
+                        idPath.gt(cursor.getId())));
+    }
+
+    /**
+     * 커서의 정렬 값이 sortKey 타입으로 변환되지 않으면 (조작된 커서, 다른 정렬 키의 커서) 잘못된 커서로 본다.
+     */
+    private static <K> K convertSortValue(KeysetCursor cursor, Class<? extends K> type) {
+        K sortValue;
+        try {
+            sortValue = DefaultConversionService.getSharedInstance().convert(cursor.getSortValue(), type);
+        } catch (ConversionException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor.encode(), e);
+        }
+        if (sortValue == null) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor.encode());
+        }
+        return sortValue;
+    }
 }
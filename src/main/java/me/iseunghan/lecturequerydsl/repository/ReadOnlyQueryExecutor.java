@@ -0,0 +1,89 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 조회 쿼리를 별도 스레드의 읽기 전용 트랜잭션(REQUIRES_NEW)에서 실행한다. 호출한 스레드의 트랜잭션에는 절대 참여하지 않는다.
+ * 작업마다 커넥션을 하나씩 사용하므로 스레드 수(pool-size)는 커넥션 풀(spring.datasource.hikari.maximum-pool-size)의 절반 이하여야 한다.
+ * 결과를 기다리는 요청 스레드도 커넥션을 하나씩 잡고 있을 수 있으므로, 작업 스레드마다 기다리는 스레드 하나가 있어도
+ * 커넥션이 모자라지 않게 하기 위해서다. 시작할 때 확인하고, 어기면 뜨지 않는다.
+ * SSE 스트림(member.sse.max-concurrent)은 커넥션을 오래 잡고 있으므로 그만큼은 미리 빼고 나머지로 기다리는 스레드 수를 정한다.
+ * 큐가 가득 차면 TaskRejectedException을 던진다. 커넥션이 따로 필요한 작업을 호출한 스레드에서 실행하면
+ * 호출한 스레드가 이미 잡고 있는 커넥션에 더해 하나를 더 잡게 되기 때문이다.
+ */
+@Component
+public class ReadOnlyQueryExecutor implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Semaphore waiters;
+
+    public ReadOnlyQueryExecutor(PlatformTransactionManager transactionManager,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+                                 @Value("${querydsl.executor.pool-size:5}") int poolSize,
+                                 @Value("${querydsl.executor.queue-capacity:100}") int queueCapacity,
+                                 @Value("${member.sse.max-concurrent:2}") int sseStreams) {
+        Assert.isTrue(poolSize > 0, "Pool size must be greater than zero!");
+        Assert.isTrue(poolSize * 2 <= maximumPoolSize, "Pool size must not exceed half of the connection pool size!");
+        Assert.isTrue(poolSize + sseStreams < maximumPoolSize, "Pool size and SSE streams must leave a connection for waiters!");
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(poolSize);
+        this.executor.setMaxPoolSize(poolSize);
+        this.executor.setQueueCapacity(queueCapacity);
+        this.executor.setThreadNamePrefix("querydsl-read-");
+        this.executor.initialize();
+
+        this.waiters = new Semaphore(maximumPoolSize - poolSize - sseStreams);
+    }
+
+    /**
+     * @throws TaskRejectedException 큐가 가득 찬 경우
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), executor);
+    }
+
+    /**
+     * 호출한 스레드가 커넥션을 잡은 채로 결과를 기다릴 작업을 실행한다.
+     * 기다리는 스레드가 모든 커넥션을 잡고 작업 스레드는 커넥션을 얻지 못하는 상황(풀 고갈)을 막기 위해,
+     * 동시에 기다리는 호출 스레드를 (maximum-pool-size - pool-size - SSE 스트림 수)개로 제한한다.
+     * 자리가 없거나 큐가 가득 차면 empty를 반환하므로 호출한 쪽에서 직접 실행하면 된다.
+     * 반환된 작업이 끝나거나 취소되면 자리를 돌려준다.
+     */
+    public <T> Optional<CompletableFuture<T>> trySubmitAwaited(Supplier<T> query) {
+        if (!waiters.tryAcquire()) {
+            return Optional.empty();
+        }
+        CompletableFuture<T> result;
+        try {
+            result = submit(query);
+        } catch (TaskRejectedException e) {
+            waiters.release();
+            return Optional.empty();
+        }
+        result.whenComplete((value, e) -> waiters.release());
+        return Optional.of(result);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,201 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import me.iseunghan.lecturequerydsl.config.MemberShards;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.StringJoiner;
+
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+
+/**
+ * member.shard.enabled=true 일 때 사용하는 샤드 저장소.
+ * JPA(primary DB)와는 별개의 저장소다. JPA 쓰기가 샤드로 복제되지 않고 searchComplexPage 등 기존 조회에서도 쓰지 않으므로,
+ * 샤드로 옮길 때는 호출하는 쪽이 id를 정해서(primary의 시퀀스 등) 직접 저장하고 이 저장소로 조회한다.
+ * 검색은 모든 샤드에 동시에 보내고(scatter), 샤드별로 정렬된 결과를 같은 정렬 기준으로 병합한다(gather).
+ *
+ * 페이징: 각 샤드에서 offset + size개까지 가져와서 병합한 뒤 offset만큼 건너뛴다. 전체 개수는 샤드별 count의 합이다.
+ * 뒤 페이지로 갈수록 샤드마다 읽는 row가 늘어나므로 깊은 페이지는 keyset 방식을 고려해야 한다.
+ */
+@ConditionalOnProperty(prefix = "member.shard", name = "enabled", havingValue = "true")
+@Repository
+public class ShardedMemberRepository {
+
+    private static final RowMapper<MemberTeamDto> ROW_MAPPER = (rs, rowNum) ->
+            new MemberTeamDto(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getLong(4), rs.getString(5));
+
+    private final MemberShards shards;
+
+    public ShardedMemberRepository(MemberShards shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * team은 모든 샤드에 복제한다. (샤드 안에서 member join team이 가능하도록) 샤드 간 원자성은 보장하지 않는다.
+     * 이미 있는 id면 이름을 바꾼다.
+     */
+    public void saveTeam(Team team) {
+        Assert.notNull(team.getId(), "Team id must be assigned before sharding!");
+        shards.all().forEach(shard ->
+                shard.update("merge into team (id, name) key (id) values (?, ?)", team.getId(), team.getName()));
+    }
+
+    /**
+     * 모든 샤드에서 team을 지운다. primary의 외래 키처럼, 어느 샤드에든 이 팀 member가 남아있으면 지우지 않는다.
+     * @throws IllegalStateException 팀에 member가 남아있는 경우
+     */
+    public void deleteTeam(Long teamId) {
+        long members = shards.scatter(shard -> shard.queryForObject("select count(*) from member where team_id = ?", Long.class, teamId))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        if (members > 0) {
+            throw new IllegalStateException("Team " + teamId + " still has " + members + " members!");
+        }
+        shards.all().forEach(shard -> shard.update("delete from team where id = ?", teamId));
+    }
+
+    /**
+     * 이미 있는 id면 username, age, team을 바꾼다.
+     */
+    public void save(Member member) {
+        Assert.notNull(member.getId(), "Member id must be assigned before sharding!");
+        Long teamId = member.getTeam() == null ? null : member.getTeam().getId();
+        shards.shardOf(member.getId()).update("merge into member (member_id, username, age, team_id) key (member_id) values (?, ?, ?, ?)",
+                member.getId(), member.getUsername(), member.getAge(), teamId);
+    }
+
+    public void deleteAll() {
+        shards.all().forEach(shard -> {
+            shard.update("delete from member");
+            shard.update("delete from team");
+        });
+    }
+
+    /**
+     * member_id 순으로 병합된 전체 결과
+     * 주의! 샤드마다 조건에 맞는 row를 전부 DTO로 읽어 List에 담은 뒤 병합하므로, 결과 전체가 한꺼번에 힙에 올라간다.
+     * (결과 수에 비례한다. 병합 중에는 샤드별 List와 병합 결과 List가 같은 DTO를 함께 가리킨다)
+     * 결과가 많을 수 있는 조건이면 searchPage를 사용한다.
+     */
+    public List<MemberTeamDto> search(MemberSearchCond cond) {
+        MemberSearchSql sql = MemberSearchSql.of(cond);
+        String orderBy = orderBy(Sort.unsorted());
+        List<List<MemberTeamDto>> results = shards.scatter(shard ->
+                shard.query(sql.select() + orderBy, ROW_MAPPER, sql.params()));
+        return merge(results, comparator(Sort.unsorted()), 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * 정렬 가능한 속성: memberId, username, age, teamName (같은 값이면 memberId 오름차순)
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCond cond, Pageable pageable) {
+        MemberSearchSql sql = MemberSearchSql.of(cond);
+        Sort sort = pageable.getSort();
+        String orderBy = orderBy(sort);
+        if (pageable.isUnpaged()) {
+            List<List<MemberTeamDto>> results = shards.scatter(shard ->
+                    shard.query(sql.select() + orderBy, ROW_MAPPER, sql.params()));
+            List<MemberTeamDto> content = merge(results, comparator(sort), 0, Long.MAX_VALUE);
+            return new PageImpl<>(content, pageable, content.size());
+        }
+
+        long limit = pageable.getOffset() + pageable.getPageSize();
+        List<ShardPage> pages = shards.scatter(shard -> new ShardPage(
+                shard.query(sql.select() + orderBy + " limit " + limit, ROW_MAPPER, sql.params()),
+                shard.queryForObject(sql.count(), Long.class, sql.params())));
+
+        List<MemberTeamDto> content = merge(pages.stream().map(ShardPage::content).toList(),
+                comparator(sort), pageable.getOffset(), pageable.getPageSize());
+        long total = pages.stream().mapToLong(ShardPage::total).sum();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * 각 샤드 결과는 comparator 순으로 정렬되어 있어야 한다. (k-way merge)
+     */
+    private static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sortedResults, Comparator<MemberTeamDto> comparator,
+                                             long offset, long limit) {
+        PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> comparator.compare(a.current(), b.current()));
+        for (List<MemberTeamDto> result : sortedResults) {
+            Iterator<MemberTeamDto> iterator = result.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+
+        List<MemberTeamDto> merged = new ArrayList<>();
+        long skipped = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Head head = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                merged.add(head.current());
+            }
+            if (head.rest().hasNext()) {
+                heads.add(new Head(head.rest().next(), head.rest()));
+            }
+        }
+        return merged;
+    }
+
+    private static String orderBy(Sort sort) {
+        StringJoiner orderBy = new StringJoiner(", ", " order by ", "");
+        for (Sort.Order order : sort) {
+            orderBy.add(column(order.getProperty()) + (order.isAscending() ? " asc" : " desc"));
+        }
+        orderBy.add("m.member_id asc");
+        return orderBy.toString();
+    }
+
+    /**
+     * orderBy와 같은 순서. H2는 null을 가장 작은 값으로 정렬한다.
+     */
+    private static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<MemberTeamDto> property = switch (order.getProperty()) {
+                case "memberId" -> Comparator.comparing(MemberTeamDto::getMemberId);
+                case "username" -> Comparator.comparing(MemberTeamDto::getUsername, nullsFirst(naturalOrder()));
+                case "age" -> Comparator.comparingInt(MemberTeamDto::getAge);
+                case "teamName" -> Comparator.comparing(MemberTeamDto::getTeamName, nullsFirst(naturalOrder()));
+                default -> throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+            };
+            comparator = comparator.thenComparing(order.isAscending() ? property : property.reversed());
+        }
+        return comparator.thenComparing(MemberTeamDto::getMemberId);
+    }
+
+    private static String column(String property) {
+        return switch (property) {
+            case "memberId" -> "m.member_id";
+            case "username" -> "m.username";
+            case "age" -> "m.age";
+            case "teamName" -> "t.name";
+            default -> throw new IllegalArgumentException("Unsupported sort property: " + property);
+        };
+    }
+
+    private record ShardPage(List<MemberTeamDto> content, long total) {
+    }
+
+    private record Head(MemberTeamDto current, Iterator<MemberTeamDto> rest) {
+    }
+}
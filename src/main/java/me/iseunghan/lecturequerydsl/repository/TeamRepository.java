@@ -0,0 +1,18 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import jakarta.persistence.QueryHint;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Optional;
+
+/**
+ * findById는 엔티티 2차 캐시를, findFirstByName은 쿼리 캐시(결과 id) + 엔티티 2차 캐시를 사용한다.
+ */
+public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<Team> findFirstByName(String name);
+}
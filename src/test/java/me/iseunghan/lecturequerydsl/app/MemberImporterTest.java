@@ -0,0 +1,135 @@
+package me.iseunghan.lecturequerydsl.app;
+
+import me.iseunghan.lecturequerydsl.cache.MemberCountCache;
+import me.iseunghan.lecturequerydsl.cache.MemberSearchResultCache;
+import me.iseunghan.lecturequerydsl.dto.BatchWriteResult;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.repository.MemberJpaRepository;
+import me.iseunghan.lecturequerydsl.repository.MemberRepository;
+import me.iseunghan.lecturequerydsl.repository.TeamRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 저장은 다른 스레드에서 묶음(테스트: 2개)마다 커밋되므로, 끝나면 직접 지운다.
+ */
+@SpringBootTest
+class MemberImporterTest {
+
+    @Autowired MemberImporter memberImporter;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberSearchResultCache searchResultCache;
+    @Autowired MemberCountCache countCache;
+
+    Team teamA;
+
+    @BeforeEach
+    void setup() {
+        teamA = teamRepository.save(new Team("teamA"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        // 벌크 삭제는 엔티티 이벤트가 발생하지 않는다.
+        searchResultCache.invalidateAll();
+        countCache.invalidateAll();
+    }
+
+    @Test
+    void importMembers_Csv() throws Exception {
+        // given
+        String csv = """
+                username,age,teamName
+                member1,10,teamA
+                "member2, jr",20,teamA
+                member3,30,teamNew
+
+                member4,40,teamNew
+                member5,50
+                """;
+
+        // when
+        BatchWriteResult result = memberImporter.importMembers(stream(csv), MemberImporter.Format.CSV);
+
+        // then
+        // teamA는 있던 팀을 쓰고, teamNew는 한번만 만든다.
+        assertThat(result.getRows()).isEqualTo(5);
+        assertThat(teamRepository.findAll()).extracting("name").containsExactlyInAnyOrder("teamA", "teamNew");
+        assertThat(memberJpaRepository.findAll())
+                .extracting("username", "age")
+                .containsExactlyInAnyOrder(
+                        tuple("member1", 10),
+                        tuple("member2, jr", 20),
+                        tuple("member3", 30),
+                        tuple("member4", 40),
+                        tuple("member5", 50));
+        assertThat(memberRepository.findByUsername("member1").get(0).getTeam().getId()).isEqualTo(teamA.getId());
+        assertThat(memberRepository.findByUsername("member5").get(0).getTeam()).isNull();
+    }
+
+    @Test
+    void importMembers_Ndjson() throws Exception {
+        // given
+        String ndjson = """
+                {"username":"member1","age":10,"teamName":"teamA"}
+                {"username":"member2","age":20,"teamName":"teamB"}
+                {"username":"member3","age":30}
+                """;
+
+        // when
+        BatchWriteResult result = memberImporter.importMembers(stream(ndjson), MemberImporter.Format.NDJSON);
+
+        // then
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(teamRepository.findAll()).extracting("name").containsExactlyInAnyOrder("teamA", "teamB");
+        assertThat(memberJpaRepository.findAll()).extracting("username").containsExactlyInAnyOrder("member1", "member2", "member3");
+    }
+
+    @Test
+    void importMembers_InvalidRecord() {
+        // given
+        String csv = """
+                member1,10,teamA
+                member2,twenty,teamA
+                """;
+
+        // when, then
+        assertThatThrownBy(() -> memberImporter.importMembers(stream(csv), MemberImporter.Format.CSV))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("record 2");
+    }
+
+    @Test
+    void importMembers_MissingAge() {
+        // given
+        String ndjson = """
+                {"username":"member1","age":10,"teamName":"teamA"}
+                {"username":"member2","age":20,"teamName":"teamA"}
+                {"username":"member3","teamName":"teamA"}
+                """;
+
+        // when, then
+        assertThatThrownBy(() -> memberImporter.importMembers(stream(ndjson), MemberImporter.Format.NDJSON))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Age is required at record 3");
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package me.iseunghan.lecturequerydsl.cache;
+
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 트랜잭션 없이 캐시만 사용한다. (트랜잭션이 없으면 항상 캐시를 거친다)
+ */
+class MemberCountCacheTest {
+
+    MemberCountCache countCache = new MemberCountCache(Duration.ofMinutes(5), 100);
+
+    @Test
+    void get_InvalidatedWhileLoading() throws Exception {
+        // given
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamA");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        // 커밋 전의 값(1)을 읽는 느린 조회
+        CompletableFuture<Long> stale = CompletableFuture.supplyAsync(() -> countCache.get(cond, () -> {
+            loading.countDown();
+            await(invalidated);
+            return 1L;
+        }));
+        await(loading);
+
+        // when
+        // 조회가 끝나기 전에 다른 트랜잭션이 커밋하면서 무효화한다.
+        countCache.invalidateIf(affected -> "teamA".equals(affected.getTeamName()));
+        invalidated.countDown();
+
+        // then
+        // 조회한 쪽은 읽은 값을 받지만, 캐시에는 남지 않는다.
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(countCache.get(cond, () -> 2L)).isEqualTo(2L);
+        assertThat(countCache.get(cond, () -> 3L)).isEqualTo(2L);
+    }
+
+    @Test
+    void get_Cached() {
+        // given
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamA");
+
+        // when
+        countCache.get(cond, () -> 1L);
+
+        // then
+        assertThat(countCache.get(cond, () -> 2L)).isEqualTo(1L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
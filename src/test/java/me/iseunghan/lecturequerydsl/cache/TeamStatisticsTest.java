@@ -0,0 +1,174 @@
+package me.iseunghan.lecturequerydsl.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.dto.TeamStatisticsDto;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.repository.MemberRepository;
+import me.iseunghan.lecturequerydsl.repository.TeamRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static me.iseunghan.lecturequerydsl.entity.QMember.member;
+import static me.iseunghan.lecturequerydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 집계는 커밋된 변경만 반영하므로 테스트 데이터를 커밋하고, 끝나면 지운다.
+ */
+@SpringBootTest
+class TeamStatisticsTest {
+
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired TeamStatistics teamStatistics;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+
+    TransactionTemplate transaction;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    void setup() {
+        transaction = new TransactionTemplate(transactionManager);
+        teamStatistics.reconcile();
+        transaction.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    void cleanup() {
+        transaction.executeWithoutResult(status -> {
+            memberRepository.deleteAllInBatch();
+            teamRepository.deleteAllInBatch();
+        });
+        teamStatistics.reconcile();
+    }
+
+    @Test
+    void findAll_SameAsGroupBy() {
+        assertThat(teamStatistics.findAll()).containsExactly(
+                new TeamStatisticsDto(teamAId, "teamA", 2, 15, 10, 20),
+                new TeamStatisticsDto(teamBId, "teamB", 2, 35, 30, 40));
+        assertThat(teamStatistics.findAll()).isEqualTo(groupBy());
+    }
+
+    @Test
+    void findAll_MemberChanged() {
+        // when
+        transaction.executeWithoutResult(status -> {
+            Member member1 = memberRepository.findByUsername("member1").get(0);
+            Member member4 = memberRepository.findByUsername("member4").get(0);
+            member1.setAge(50);
+            member1.setTeam(em.getReference(Team.class, teamBId));  // teamA -> teamB
+            em.remove(member4);
+            em.find(Team.class, teamAId).setName("teamC");
+        });
+
+        // then
+        assertThat(teamStatistics.findAll()).containsExactly(
+                new TeamStatisticsDto(teamBId, "teamB", 2, 40, 30, 50),
+                new TeamStatisticsDto(teamAId, "teamC", 1, 20, 20, 20));
+        assertThat(teamStatistics.findAll()).isEqualTo(groupBy());
+    }
+
+    @Test
+    void findAll_RolledBack() {
+        // when
+        transaction.executeWithoutResult(status -> {
+            em.persist(new Member("member5", 90, em.getReference(Team.class, teamAId)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertThat(teamStatistics.findAll()).isEqualTo(groupBy());
+    }
+
+    @Test
+    void reconcile_Drifted() {
+        // given
+        // 벌크 update는 엔티티 이벤트가 발생하지 않는다.
+        transaction.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+
+        // when
+        int drifted = teamStatistics.reconcile();
+
+        // then
+        assertThat(drifted).isEqualTo(2);
+        assertThat(teamStatistics.findAll()).isEqualTo(groupBy());
+    }
+
+    @Test
+    void reconcile_WaitsForCommittingTransaction() throws Exception {
+        // given
+        CompletableFuture<Integer> reconciled = new CompletableFuture<>();
+
+        // when
+        transaction.executeWithoutResult(status -> {
+            // 커밋할 때 flush하므로 이벤트는 beforeCommit 이후에 온다.
+            em.persist(new Member("member5", 90, em.getReference(Team.class, teamAId)));
+            // DB에는 커밋됐지만 집계에는 아직 반영되지 않은 시점에 다시 맞춘다.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    CompletableFuture.runAsync(() -> reconciled.complete(teamStatistics.reconcile()));
+                    assertThatThrownBy(() -> reconciled.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+                }
+            });
+        });
+
+        // then
+        // 반영이 끝난 뒤에 조회하므로 새 member가 두번 세어지지 않는다.
+        assertThat(reconciled.get(5, TimeUnit.SECONDS)).isZero();
+        assertThat(teamStatistics.findAll()).isEqualTo(groupBy());
+    }
+
+    private List<TeamStatisticsDto> groupBy() {
+        return transaction.execute(status -> new JPAQueryFactory(em)
+                .select(team.id, team.name, member.count(), member.age.avg(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.id, team.name)
+                .orderBy(team.name.asc(), team.id.asc())
+                .fetch()
+                .stream()
+                .map(TeamStatisticsTest::toDto)
+                .toList());
+    }
+
+    private static TeamStatisticsDto toDto(Tuple row) {
+        return new TeamStatisticsDto(row.get(team.id), row.get(team.name), row.get(member.count()),
+                row.get(member.age.avg()), row.get(member.age.min()), row.get(member.age.max()));
+    }
+}
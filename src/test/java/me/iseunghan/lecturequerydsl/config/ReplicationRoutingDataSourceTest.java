@@ -0,0 +1,93 @@
+package me.iseunghan.lecturequerydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReplicationRoutingDataSourceTest {
+
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired ReplicaSet replicaSet;
+
+    @AfterEach
+    void cleanup() {
+        replicaSet.getReplicas().forEach(replica -> replica.setHealthy(true));
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() {
+        // when
+        String write = execute(false, "select database()");
+        Set<String> reads = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(execute(true, "select database()").toLowerCase());
+        }
+
+        // then
+        assertThat(write).isEqualToIgnoringCase("querydsl");
+        // 정상인 replica를 돌아가면서 사용한다.
+        assertThat(reads).containsExactlyInAnyOrder("querydsl_replica1", "querydsl_replica2");
+    }
+
+    @Test
+    void skipsUnhealthyReplica() {
+        // given
+        replicaSet.getReplicas().get(0).setHealthy(false);
+
+        // when
+        Set<String> reads = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(execute(true, "select database()").toLowerCase());
+        }
+
+        // then
+        assertThat(reads).containsExactly("querydsl_replica2");
+    }
+
+    @Test
+    void fallsBackToPrimaryWithoutHealthyReplica() {
+        // given
+        replicaSet.getReplicas().forEach(replica -> replica.setHealthy(false));
+
+        // when
+        String read = execute(true, "select database()");
+
+        // then
+        assertThat(read).isEqualToIgnoringCase("querydsl");
+    }
+
+    @Test
+    void replicaReadsCommittedPrimaryData() {
+        // given
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jdbcTemplate.update("insert into team (id, name) values (next value for team_seq, 'replicated')"));
+
+        try {
+            // when
+            Long count = Long.valueOf(execute(true, "select count(*) from team where name = 'replicated'"));
+
+            // then
+            assertThat(count).isEqualTo(1);
+        } finally {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    jdbcTemplate.update("delete from team where name = 'replicated'"));
+        }
+    }
+
+    private String execute(boolean readOnly, String sql) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject(sql, String.class));
+    }
+}
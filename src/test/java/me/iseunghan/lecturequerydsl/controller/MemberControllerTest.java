@@ -0,0 +1,115 @@
+package me.iseunghan.lecturequerydsl.controller;
+
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.cache.MemberCountCache;
+import me.iseunghan.lecturequerydsl.cache.MemberSearchResultCache;
+import me.iseunghan.lecturequerydsl.config.ReplicaSet;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.repository.MemberRepository;
+import me.iseunghan.lecturequerydsl.repository.TeamRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 스트림은 SSE 전용 스레드의 별도 트랜잭션에서 읽으므로 테스트 데이터를 커밋하고, 끝나면 지운다.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+class MemberControllerTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberSearchResultCache searchResultCache;
+    @Autowired MemberCountCache countCache;
+    @Autowired ReplicaSet replicaSet;
+
+    TransactionTemplate transaction;
+
+    @BeforeEach
+    void setup() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamA));
+        });
+    }
+
+    @AfterEach
+    void cleanup() {
+        transaction.executeWithoutResult(status -> {
+            memberRepository.deleteAllInBatch();
+            teamRepository.deleteAllInBatch();
+        });
+        // 벌크 삭제는 엔티티 이벤트가 발생하지 않는다.
+        searchResultCache.invalidateAll();
+        countCache.invalidateAll();
+    }
+
+    @Test
+    void sseMembers() throws Exception {
+        // when
+        MvcResult result = mockMvc.perform(get("/v1/members/sse")
+                        .param("teamName", "teamA")
+                        .param("chunkSize", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5_000);     // emitter.complete()까지 기다린다.
+
+        // then
+        // 2개, 1개씩 chunk 이벤트 2번, 마지막에 complete 이벤트
+        String events = result.getResponse().getContentAsString();
+        assertThat(events.split("event:chunk", -1)).hasSize(3);
+        assertThat(events).contains("member1", "member2", "member3");
+        assertThat(events).contains("event:complete");
+        assertThat(events).contains("\"rows\":3");
+    }
+
+    @Test
+    void findMembers_ReadFromReplica() throws Exception {
+        // given
+        long before = replicaReads();
+
+        // when
+        mockMvc.perform(get("/v1/members").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("member3")));
+        long afterV1 = replicaReads();
+        mockMvc.perform(get("/v2/members").param("teamName", "teamA").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"totalElements\":3")));
+        long afterV2 = replicaReads();
+
+        // then
+        // replica(querydsl_replica1, querydsl_replica2)로 보낸 읽기 전용 트랜잭션 수
+        assertThat(afterV1).isGreaterThan(before);
+        assertThat(afterV2).isGreaterThan(afterV1);
+    }
+
+    private long replicaReads() {
+        return replicaSet.getReplicas().stream()
+                .mapToLong(ReplicaSet.Replica::getReads)
+                .sum();
+    }
+}
@@ -0,0 +1,82 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.repository.MemberSearchQueryRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 쿼리를 실제로 실행해서 Hibernate가 만든 SQL을 p6spy로 받아오고, H2 EXPLAIN으로 테이블 스캔 여부를 확인한다.
+ * 테스트에서 assertIndexed()를 사용하면 인덱스를 타지 않게 바뀐 쿼리를 빌드 단계에서 잡을 수 있다.
+ * 쿼리를 한번 더 실행하고 EXPLAIN까지 보내므로 테스트에서만 사용한다. (테스트 소스에 있어서 애플리케이션에는 등록되지 않는다)
+ */
+@Component
+public class IndexAdvisor {
+
+    private static final int SHAPE_COUNT = 1 << 4;    // MemberSearchCond의 선택 조건 4개를 켜고 끈 조합
+
+    private final MemberSearchQueryRegistry memberSearchQueries;
+    private final JdbcTemplate jdbcTemplate;
+
+    public IndexAdvisor(MemberSearchQueryRegistry memberSearchQueries, JdbcTemplate jdbcTemplate) {
+        this.memberSearchQueries = memberSearchQueries;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * MemberSearchQueryRegistry의 조건 모양마다 content, count 쿼리의 실행 계획.
+     * 조건이 없는 모양(0)은 전체 조회라서 제외한다.
+     */
+    public List<QueryPlan> explainMemberSearchShapes() {
+        List<QueryPlan> plans = new ArrayList<>();
+        for (int shape = 1; shape < SHAPE_COUNT; shape++) {
+            MemberSearchCond cond = sampleCond(shape);
+            plans.addAll(explain("content#" + shape, () -> memberSearchQueries.contentQuery(cond).fetch()));
+            plans.addAll(explain("count#" + shape, () -> memberSearchQueries.countQuery(cond).fetchOne()));
+        }
+        return plans;
+    }
+
+    /**
+     * 모양별 대표 조건. shape의 비트마다 username, teamName, ageGoe, ageLoe 조건을 켠다.
+     */
+    private static MemberSearchCond sampleCond(int shape) {
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setUsername((shape & 1) != 0 ? "member1" : null);
+        cond.setTeamName((shape & 1 << 1) != 0 ? "teamA" : null);
+        cond.setAgeGoe((shape & 1 << 2) != 0 ? 10 : null);
+        cond.setAgeLoe((shape & 1 << 3) != 0 ? 20 : null);
+        return cond;
+    }
+
+    /**
+     * queries에서 실행된 select 문마다 실행 계획을 구한다.
+     */
+    public List<QueryPlan> explain(String name, Runnable queries) {
+        List<String> statements;
+        try (QueryCounter.Scope scope = QueryCounter.capture()) {
+            queries.run();
+            statements = List.copyOf(scope.statements());
+        }
+        return statements.stream()
+                .filter(sql -> QueryCounter.normalize(sql).startsWith("select"))
+                .map(sql -> new QueryPlan(name, sql, jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class)))
+                .toList();
+    }
+
+    public void assertIndexed(List<QueryPlan> plans) {
+        List<QueryPlan> scans = plans.stream()
+                .filter(QueryPlan::hasTableScan)
+                .toList();
+        if (!scans.isEmpty()) {
+            StringBuilder message = new StringBuilder("인덱스를 사용하지 않는 쿼리가 있습니다.");
+            scans.forEach(plan -> message.append("\n- ").append(plan.getName())
+                    .append(" tableScan=").append(plan.getTableScans())
+                    .append("\n").append(plan.getPlan()));
+            throw new IllegalStateException(message.toString());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static me.iseunghan.lecturequerydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Transactional
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired EntityManager em;
+    @Autowired IndexAdvisor indexAdvisor;
+
+    @BeforeEach
+    void setup() {
+        for (int i = 0; i < 10; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < 10; j++) {
+                em.persist(new Member("member" + (i * 10 + j), j * 10, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void memberSearchShapesUseIndexes() {
+        // when
+        List<QueryPlan> plans = indexAdvisor.explainMemberSearchShapes();
+
+        // then
+        assertThat(plans).hasSize(30);  // 15가지 모양 * (content, count)
+        indexAdvisor.assertIndexed(plans);
+    }
+
+    @Test
+    void detectsTableScan() {
+        // when
+        // 컬럼에 함수를 씌우면 인덱스를 사용할 수 없다.
+        List<QueryPlan> plans = indexAdvisor.explain("lower(username)", () -> new JPAQueryFactory(em)
+                .selectFrom(member)
+                .where(member.username.lower().eq("member1"))
+                .fetch());
+
+        // then
+        assertThat(plans).singleElement().satisfies(plan -> assertThat(plan.hasTableScan()).isTrue());
+        assertThatThrownBy(() -> indexAdvisor.assertIndexed(plans))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
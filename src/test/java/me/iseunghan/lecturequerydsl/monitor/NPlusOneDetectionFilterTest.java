@@ -0,0 +1,49 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NPlusOneDetectionFilterTest {
+
+    NPlusOneDetectionFilter filter = new NPlusOneDetectionFilter(3, true);
+
+    @Test
+    void failsWhenResponseNotCommitted() {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when, then
+        assertThatThrownBy(() -> filter.doFilter(request, response, repeatedQueries(false)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("N+1 의심");
+    }
+
+    @Test
+    void onlyLogsWhenResponseCommitted() {
+        // given
+        // 스트리밍 응답처럼 이미 클라이언트에 내보낸 뒤에는 예외로 응답을 바꿀 수 없다.
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members/stream");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when, then
+        assertThatNoException().isThrownBy(() -> filter.doFilter(request, response, repeatedQueries(true)));
+    }
+
+    private static FilterChain repeatedQueries(boolean commitResponse) {
+        return (request, response) -> {
+            for (long id = 0; id < 3; id++) {
+                String sql = "select * from member where team_id = " + id;
+                QueryCounter.record(sql, () -> sql);
+            }
+            if (commitResponse) {
+                response.flushBuffer();
+            }
+        };
+    }
+}
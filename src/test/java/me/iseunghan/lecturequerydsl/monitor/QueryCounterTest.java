@@ -0,0 +1,77 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static me.iseunghan.lecturequerydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Transactional
+@SpringBootTest
+class QueryCounterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setup() {
+        for (int i = 0; i < 3; i++) {
+            Team t = new Team("team" + i);
+            em.persist(t);
+            em.persist(new Member("member" + i, 10 + i, t));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void detectsLazyCollectionNPlusOne() {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            // when
+            List<Team> teams = new JPAQueryFactory(em)
+                    .selectFrom(team)
+                    .where(team.name.startsWith("team"))
+                    .fetch();
+            teams.forEach(t -> t.getMembers().size());  // 팀마다 members 조회 쿼리가 나간다.
+
+            // then
+            QueryCountReport report = scope.report();
+            assertThat(report.getTotal()).isGreaterThanOrEqualTo(4);
+            assertThat(report.repeated(3)).hasSize(1);
+            assertThatThrownBy(() -> report.assertNoRepeatedStatements(3))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void fetchJoinDoesNotRepeat() {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            // when
+            List<Team> teams = new JPAQueryFactory(em)
+                    .selectFrom(team).distinct()
+                    .leftJoin(team.members).fetchJoin()
+                    .where(team.name.startsWith("team"))
+                    .fetch();
+            teams.forEach(t -> t.getMembers().size());
+
+            // then
+            scope.report().assertNoRepeatedStatements(2);
+        }
+    }
+
+    @Test
+    void normalize() {
+        assertThat(QueryCounter.normalize("/* load */ select m.id from member m where m.id = 10 and m.name = 'a'  and m.age in (?, ?, ?)"))
+                .isEqualTo("select m.id from member m where m.id = ? and m.name = ? and m.age in (?)");
+    }
+}
@@ -0,0 +1,67 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * H2 EXPLAIN 결과. 테이블마다 접근 방식이 주석으로 붙어 나온다.
+ * ex) PUBLIC.MEMBER.tableScan (전체 스캔), PUBLIC.IDX_MEMBER_USERNAME: USERNAME = 'member1' (인덱스 조회)
+ */
+public class QueryPlan {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*([\\w.\"]+)\\.tableScan\\s*\\*/");
+    private static final Pattern INDEX_LOOKUP = Pattern.compile("/\\*\\s*([\\w.\"]+):");
+
+    private final String name;
+    private final String sql;
+    private final String plan;
+    private final List<String> tableScans;  // 전체 스캔하는 테이블
+    private final List<String> indexes;     // 사용한 인덱스
+
+    QueryPlan(String name, String sql, String plan) {
+        this.name = name;
+        this.sql = sql;
+        this.plan = plan;
+        this.tableScans = groups(TABLE_SCAN.matcher(plan));
+        this.indexes = groups(INDEX_LOOKUP.matcher(plan));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+
+    public List<String> getTableScans() {
+        return tableScans;
+    }
+
+    public List<String> getIndexes() {
+        return indexes;
+    }
+
+    public boolean hasTableScan() {
+        return !tableScans.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryPlan(name=" + name + ", sql=" + sql + ", plan=" + plan + ", tableScans=" + tableScans + ", indexes=" + indexes + ")";
+    }
+
+    private static List<String> groups(Matcher matcher) {
+        List<String> groups = new ArrayList<>();
+        while (matcher.find()) {
+            groups.add(matcher.group(1));
+        }
+        return List.copyOf(groups);
+    }
+}
@@ -0,0 +1,93 @@
+package me.iseunghan.lecturequerydsl.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.repository.MemberJpaRepository;
+import me.iseunghan.lecturequerydsl.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@Transactional
+@SpringBootTest
+class RepositoryMetricsEndpointTest {
+
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired RepositoryMetricsEndpoint repositoryMetricsEndpoint;
+
+    @Test
+    void recordsRepositoryMethod() {
+        // given
+        memberJpaRepository.dynamicSearchMember_WhereParams(new MemberSearchCond());
+        memberJpaRepository.dynamicSearchMember_WhereParams(new MemberSearchCond());
+
+        // when
+        List<RepositoryMethodMetrics> methods = repositoryMetricsEndpoint.methods();
+
+        // then
+        assertThat(methods)
+                .filteredOn(metrics -> metrics.getMethod().equals("dynamicSearchMember_WhereParams"))
+                .singleElement()
+                .satisfies(metrics -> {
+                    assertThat(metrics.getRepository()).isEqualTo("MemberJpaRepository");
+                    assertThat(metrics.getCount()).isGreaterThanOrEqualTo(2);
+                    assertThat(metrics.getMaxMillis()).isGreaterThan(0);
+                });
+        assertThat(repositoryMetricsEndpoint.repositories()).containsKeys("methods", "hibernate");
+    }
+
+    @Test
+    void recordsAsyncRepositoryMethodOnCompletion() {
+        // given
+        long rowsBefore = rowsOf("searchAsync").count();
+        long latencyBefore = latencyOf("searchAsync").count();
+
+        // when
+        memberRepository.searchAsync(new MemberSearchCond()).join();
+
+        // then
+        // row 수는 future가 끝나야 알 수 있으므로, 기록되었다면 완료 시점에 기록한 것이다.
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(rowsOf("searchAsync").count()).isEqualTo(rowsBefore + 1);
+            assertThat(latencyOf("searchAsync").count()).isEqualTo(latencyBefore + 1);
+        });
+    }
+
+    @Test
+    void doesNotRecordRowsOfBulkUpdate() {
+        // given
+        long latencyBefore = latencyOf("bulkAddAge").count();
+
+        // when
+        memberRepository.bulkAddAge(new MemberSearchCond(), 1);
+
+        // then
+        // 벌크 연산이 반환하는 값은 변경한 row 수라서 조회한 row 수로 기록하지 않는다.
+        assertThat(latencyOf("bulkAddAge").count()).isEqualTo(latencyBefore + 1);
+        assertThat(meterRegistry.find(RepositoryMetricsAspect.ROWS_METRIC).tag("method", "bulkAddAge").summary()).isNull();
+    }
+
+    private DistributionSummary rowsOf(String method) {
+        return DistributionSummary.builder(RepositoryMetricsAspect.ROWS_METRIC)
+                .tags("repository", "MemberRepositoryCustomImpl", "method", method)
+                .register(meterRegistry);
+    }
+
+    private Timer latencyOf(String method) {
+        return Timer.builder(RepositoryMetricsAspect.LATENCY_METRIC)
+                .tags("repository", "MemberRepositoryCustomImpl", "method", method)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
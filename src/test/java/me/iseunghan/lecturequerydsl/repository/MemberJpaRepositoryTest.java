@@ -1,11 +1,17 @@
 package me.iseunghan.lecturequerydsl.repository;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.dto.BatchWriteResult;
 import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamColumns;
 import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
 import me.iseunghan.lecturequerydsl.entity.Member;
 import me.iseunghan.lecturequerydsl.entity.QMember;
 import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.monitor.QueryCounter;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -13,8 +19,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchIndexOutOfBoundsException;
@@ -26,6 +37,7 @@ class MemberJpaRepositoryTest {
     @Autowired EntityManager em;
     @Autowired MemberJpaRepository memberJpaRepository;
     @Autowired MemberRepository memberRepository;
+    @Autowired ObjectMapper objectMapper;
 
     @Test
     void jpaBasicTest() {
@@ -69,6 +81,28 @@ class MemberJpaRepositoryTest {
         assertThat(member1).containsExactly(member);
     }
 
+    @Test
+    void saveAll_Test() {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        List<Member> members = IntStream.range(0, 250)
+                .mapToObj(i -> {
+                    Member member = new Member("member" + i, i);
+                    member.setTeam(teamA);
+                    return member;
+                })
+                .toList();
+
+        // when
+        BatchWriteResult result = memberJpaRepository.saveAll(members);
+
+        // then
+        assertThat(result.getRows()).isEqualTo(250);
+        assertThat(memberJpaRepository.findAll()).hasSize(250);
+        assertThat(em.contains(members.get(0))).isFalse();  // flush 후 clear 되었다.
+    }
+
     void setup() {
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -132,6 +166,103 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member5");
     }
 
+    @Test
+    void dynamicQuerydsl_WhereParams_AllShapes_Test() {
+        // given
+        setup();
+
+        // 4가지 조건의 모든 조합(16가지 모양)에 대해 BooleanBuilder 방식과 결과가 같아야 한다.
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCond cond = new MemberSearchCond();
+            cond.setUsername((shape & 1) != 0 ? "member5" : null);
+            cond.setTeamName((shape & 2) != 0 ? "teamB" : null);
+            cond.setAgeGoe((shape & 4) != 0 ? 40 : null);
+            cond.setAgeLoe((shape & 8) != 0 ? 80 : null);
+
+            // when
+            List<MemberTeamDto> result = memberJpaRepository.dynamicSearchMember_WhereParams(cond);
+
+            // then
+            assertThat(result)
+                    .extracting("username")
+                    .containsExactlyInAnyOrderElementsOf(memberJpaRepository.dynamicSearchMember_Builder(cond)
+                            .stream()
+                            .map(MemberTeamDto::getUsername)
+                            .toList());
+        }
+    }
+
+    @Test
+    void streamSearchMember_WhereParams_Test() {
+        // given
+        setup();
+
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamB");
+        List<MemberTeamDto> result = new ArrayList<>();
+
+        // when
+        long count = memberJpaRepository.streamSearchMember_WhereParams(cond, 2, result::add);
+
+        // then
+        assertThat(count).isEqualTo(5);
+        assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("member4", "member5", "member6", "member7", "member8");
+    }
+
+    @Test
+    void searchMember_Columns_Test() throws Exception {
+        // given
+        setup();
+
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCond cond = new MemberSearchCond();
+            cond.setUsername((shape & 1) != 0 ? "member5" : null);
+            cond.setTeamName((shape & 2) != 0 ? "teamB" : null);
+            cond.setAgeGoe((shape & 4) != 0 ? 40 : null);
+            cond.setAgeLoe((shape & 8) != 0 ? 80 : null);
+
+            // when
+            MemberTeamColumns columns = memberJpaRepository.searchMember_Columns(cond, 2);
+            List<MemberTeamDto> list = memberJpaRepository.dynamicSearchMember_WhereParams(cond);
+
+            // then
+            // List<MemberTeamDto>와 같은 JSON으로 직렬화된다. (순서는 보장하지 않는다)
+            TypeReference<List<Map<String, Object>>> rows = new TypeReference<>() {};
+            assertThat(objectMapper.readValue(objectMapper.writeValueAsString(columns), rows))
+                    .containsExactlyInAnyOrderElementsOf(objectMapper.readValue(objectMapper.writeValueAsString(list), rows));
+            assertThat(columns.toList()).containsExactlyInAnyOrderElementsOf(list);
+        }
+    }
+
+    @Test
+    void exportMember_Csv_Test() {
+        // given
+        setup();
+        Team teamC = new Team("팀C");
+        em.persist(teamC);
+        em.persist(new Member("he said \"hi\", bye", 90, teamC));
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setAgeGoe(70);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        long rows = memberJpaRepository.exportMember_Csv(cond, 2, out);
+
+        // then
+        // 쉼표, 큰따옴표가 있는 값은 큰따옴표로 감싸고, 큰따옴표는 두번 쓴다.
+        List<String> expected = new ArrayList<>();
+        expected.add("memberId,username,age,teamId,teamName");
+        for (MemberTeamDto dto : memberJpaRepository.dynamicSearchMember_WhereParams(cond)) {
+            String username = dto.getUsername().contains(",") ?
+                    "\"" + dto.getUsername().replace("\"", "\"\"") + "\"" : dto.getUsername();
+            expected.add(dto.getMemberId() + "," + username + "," + dto.getAge() + "," + dto.getTeamId() + "," + dto.getTeamName());
+        }
+        assertThat(rows).isEqualTo(3);
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\r\n")).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("\"he said \"\"hi\"\", bye\",90,").contains(",팀C\r\n");
+    }
+
     @Test
     void spring_data_jpa_dynamicQuerydsl_WhereParams_Test() {
         // given
@@ -199,4 +330,75 @@ class MemberJpaRepositoryTest {
                 .containsExactly("member1", "member2", "member3");
     }
 
-}
\ No newline at end of file
+    @Test
+    void bulkAddAge_Test() {
+        // given
+        setup();
+        Member member1 = memberJpaRepository.findByUsername_dsl("member1").get(0);
+        Member member5 = memberJpaRepository.findByUsername_dsl("member5").get(0);
+        memberJpaRepository.findAll();      // 대상 member 4명을 모두 영속성 컨텍스트에 올린다.
+
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamB");
+        cond.setAgeGoe(50);
+
+        // when
+        long count;
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            count = memberRepository.bulkAddAge(cond, 1);
+            // 대상 엔티티를 하나씩 refresh하지 않고 in절 한번으로 다시 조회한다.
+            scope.report().assertNoRepeatedStatements(2);
+        }
+
+        // then
+        assertThat(count).isEqualTo(4);
+        assertThat(em.contains(member5)).isFalse();     // 대상이 되는 엔티티만 다시 조회한 새 인스턴스로 바뀐다.
+        Member reloaded = em.find(Member.class, member5.getId());
+        assertThat(reloaded.getAge()).isEqualTo(51);
+        assertThat(reloaded.getTeam().getMembers()).contains(reloaded).doesNotContain(member5);
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(member1.getAge()).isEqualTo(10);
+    }
+
+    @Test
+    void bulkDelete_Test() {
+        // given
+        setup();
+        Member member8 = memberJpaRepository.findByUsername_dsl("member8").get(0);
+        Member member1 = memberJpaRepository.findByUsername_dsl("member1").get(0);
+
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setUsername("member8");
+
+        // when
+        long count = memberRepository.bulkDelete(cond);
+
+        // then
+        assertThat(count).isEqualTo(1);
+        assertThat(em.contains(member8)).isFalse();
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(memberJpaRepository.findAll_dsl()).hasSize(7);
+    }
+
+    @Test
+    void bulkDelete_UninitializedTeamProxy() {
+        // given
+        setup();
+        Long member1Id = memberJpaRepository.findByUsername_dsl("member1").get(0).getId();
+        em.clear();
+        Member member1 = em.find(Member.class, member1Id);     // teamA는 초기화되지 않은 프록시
+        assertThat(Hibernate.isInitialized(member1.getTeam())).isFalse();
+
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamB");
+
+        // when
+        long count = memberRepository.bulkDelete(cond);
+
+        // then
+        // 팀 이름을 몰라도 삭제 대상이 아닌 member는 영속성 컨텍스트에 남아있어야 한다.
+        assertThat(count).isEqualTo(5);
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(Hibernate.isInitialized(member1.getTeam())).isFalse();
+    }
+}
@@ -0,0 +1,175 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.cache.MemberCountCache;
+import me.iseunghan.lecturequerydsl.cache.MemberSearchResultCache;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.monitor.QueryCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 비동기 조회는 별도 트랜잭션에서 실행되므로 테스트 데이터를 커밋하고, 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberTestRepository memberTestRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberSearchResultCache searchResultCache;
+    @Autowired MemberCountCache countCache;
+
+    TransactionTemplate transaction;
+
+    @BeforeEach
+    void setup() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    void cleanup() {
+        transaction.executeWithoutResult(status -> {
+            memberRepository.deleteAllInBatch();
+            teamRepository.deleteAllInBatch();
+        });
+        // 벌크 삭제는 엔티티 이벤트가 발생하지 않는다.
+        searchResultCache.invalidateAll();
+        countCache.invalidateAll();
+    }
+
+    @Test
+    void searchAsync() {
+        // given
+        MemberSearchCond condA = new MemberSearchCond();
+        condA.setTeamName("teamA");
+        MemberSearchCond condB = new MemberSearchCond();
+        condB.setTeamName("teamB");
+
+        // when
+        CompletableFuture<List<MemberTeamDto>> teamA = memberRepository.searchAsync(condA);
+        CompletableFuture<List<MemberTeamDto>> teamB = memberRepository.searchAsync(condB);
+
+        // then
+        assertThat(teamA.join()).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+        assertThat(teamB.join()).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+    }
+
+    @Test
+    void searchComplexPageAsync() {
+        // given
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setAgeGoe(20);
+
+        // when
+        Page<MemberTeamDto> result = memberRepository.searchComplexPageAsync(cond, PageRequest.of(0, 2)).join();
+
+        // then
+        assertThat(result).hasSize(2);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void pageSelect_ConcurrentCount() {
+        // given
+        MemberSearchCond cond = new MemberSearchCond();
+
+        Page<MemberTeamDto> result;
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            // when
+            result = memberTestRepository.pageSelect_ConcurrentCount(cond, PageRequest.of(0, 2));
+
+            // then
+            // count는 다른 스레드에서 실행되므로 이 스레드에서는 content 쿼리만 보인다.
+            assertThat(scope.report().getTotal()).isEqualTo(1);
+        }
+        assertThat(result).hasSize(2);
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void search_Cached() {
+        // given
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamA");
+        List<MemberTeamDto> first = memberRepository.search(cond);
+
+        // when
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            List<MemberTeamDto> second = memberRepository.search(cond);
+
+            // then
+            assertThat(second).isEqualTo(first);
+            assertThat(scope.report().getTotal()).isZero();
+        }
+    }
+
+    @Test
+    void search_InvalidatedByMemberInsert() {
+        // given
+        MemberSearchCond teamA = new MemberSearchCond();
+        teamA.setTeamName("teamA");
+        MemberSearchCond teamB = new MemberSearchCond();
+        teamB.setTeamName("teamB");
+        memberRepository.search(teamA);
+        memberRepository.search(teamB);
+
+        // when
+        transaction.executeWithoutResult(status -> {
+            Team team = teamRepository.findFirstByName("teamA").orElseThrow();
+            em.persist(new Member("member5", 50, team));
+        });
+
+        // then
+        // teamA 조건만 무효화된다.
+        assertThat(memberRepository.search(teamA)).extracting("username").contains("member5");
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            assertThat(memberRepository.search(teamB)).hasSize(2);
+            assertThat(scope.report().getTotal()).isZero();
+        }
+    }
+
+    @Test
+    void search_InvalidatedByTeamRename() {
+        // given
+        // teamName 조건이 없어도 결과 row에 팀 이름이 들어있다.
+        MemberSearchCond all = new MemberSearchCond();
+        assertThat(memberRepository.search(all)).extracting("teamName").contains("teamA");
+
+        // when
+        transaction.executeWithoutResult(status -> teamRepository.findFirstByName("teamA").orElseThrow().setName("teamZ"));
+
+        // then
+        assertThat(memberRepository.search(all))
+                .extracting("teamName")
+                .containsExactlyInAnyOrder("teamZ", "teamZ", "teamB", "teamB");
+    }
+}
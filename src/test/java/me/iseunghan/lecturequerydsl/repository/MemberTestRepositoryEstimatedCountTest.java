@@ -0,0 +1,60 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.dto.EstimatedPage;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * threshold(3)를 넘으면 추정값을 사용한다. 표본 구간이 id 1개뿐이라 추정값이 실제보다 작게 나올 수 있다.
+ */
+@Transactional
+@SpringBootTest
+@TestPropertySource(properties = {
+        "querydsl.pagination.exact-count-threshold=3",
+        "querydsl.pagination.estimate-sample-size=1"
+})
+class MemberTestRepositoryEstimatedCountTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    void setup() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 8; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void pageSelect_Estimated_Approximate() {
+        // given
+        PageRequest pageRequest = PageRequest.of(1, 3);
+        MemberSearchCond cond = new MemberSearchCond();
+
+        // when
+        EstimatedPage<MemberTeamDto> result = memberTestRepository.pageSelect_Estimated(cond, pageRequest);
+
+        // then
+        // 추정값이 작더라도 threshold + 1개, 현재 페이지까지의 개수(6)보다 작지 않다.
+        assertThat(result.isApproximate()).isTrue();
+        assertThat(result.getTotalElements()).isGreaterThanOrEqualTo(6);
+        assertThat(result).hasSize(3);
+    }
+}
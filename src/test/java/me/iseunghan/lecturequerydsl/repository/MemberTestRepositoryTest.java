@@ -1,21 +1,29 @@
 package me.iseunghan.lecturequerydsl.repository;
 
 import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.dto.EstimatedPage;
+import me.iseunghan.lecturequerydsl.dto.KeysetSlice;
 import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
 import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
 import me.iseunghan.lecturequerydsl.entity.Member;
 import me.iseunghan.lecturequerydsl.entity.Team;
+import me.iseunghan.lecturequerydsl.monitor.QueryCounter;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import static me.iseunghan.lecturequerydsl.entity.QMember.member;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @Transactional
 @SpringBootTest
@@ -123,4 +131,118 @@ class MemberTestRepositoryTest {
         assertThat(result).hasSize(1);
         assertThat(result.getContent().get(0).getUsername()).isEqualTo("member5");
     }
-}
\ No newline at end of file
+
+    @Test
+    void pageSelect_ConcurrentCount() {
+        // given
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setUsername("member5");
+        cond.setTeamName("teamB");
+
+        // when
+        Page<MemberTeamDto> result = memberTestRepository.pageSelect_ConcurrentCount(cond, pageRequest);
+
+        // then
+        // 첫 페이지가 size보다 작으면 count 쿼리 결과를 사용하지 않는다. (별도 트랜잭션의 count는 이 테스트의 데이터를 보지 못한다)
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).extracting("username").containsExactly("member5");
+    }
+
+    @Test
+    void pageSelect_DeferredJoin() {
+        // given
+        PageRequest pageRequest = PageRequest.of(1, 3, Sort.by(Sort.Order.desc("age"), Sort.Order.asc("id")));
+        MemberSearchCond cond = new MemberSearchCond();
+
+        Page<MemberTeamDto> result;
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            // when
+            result = memberTestRepository.pageSelect_DeferredJoin(cond, pageRequest);
+
+            // then
+            // id 페이징 1번, 그 id들의 content 1번, count 1번
+            assertThat(scope.report().getTotal()).isEqualTo(3);
+        }
+        assertThat(result.getContent()).extracting("username").containsExactly("member5", "member1", "member2");
+        assertThat(result.getContent()).isEqualTo(memberTestRepository.pageSelect_Count(cond, pageRequest).getContent());
+        assertThat(result.getTotalElements()).isEqualTo(8);
+    }
+
+    @Test
+    void pageSelect_Estimated() {
+        // given
+        PageRequest pageRequest = PageRequest.of(0, 3);
+        MemberSearchCond cond = new MemberSearchCond();
+
+        // when
+        EstimatedPage<MemberTeamDto> result = memberTestRepository.pageSelect_Estimated(cond, pageRequest);
+
+        // then
+        // threshold보다 적으므로 정확한 값
+        assertThat(result.isApproximate()).isFalse();
+        assertThat(result.getTotalElements()).isEqualTo(8);
+        assertThat(result).hasSize(3);
+    }
+
+    @Test
+    void keysetSelect() {
+        // given
+        MemberSearchCond cond = new MemberSearchCond();
+        List<String> usernames = new ArrayList<>();
+        String cursor = null;
+
+        // when
+        do {
+            KeysetSlice<MemberTeamDto> slice = memberTestRepository.keysetSelect(cond, cursor, 3);
+            slice.getContent().forEach(dto -> usernames.add(dto.getUsername()));
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+
+        // then
+        assertThat(usernames).containsExactly("member1",
+                "member2",
+                "member3",
+                "member4",
+                "member5",
+                "member6",
+                "member7",
+                "member8");
+    }
+
+    @Test
+    void keysetSelect_InvalidSortValue() {
+        // given
+        // 정렬 키(age)로 변환할 수 없는 값을 가진 커서도 잘못된 커서로 거절해야 한다.
+        MemberSearchCond cond = new MemberSearchCond();
+        String cursor = new KeysetCursor("not-a-number", 1L).encode();
+
+        // when, then
+        assertThatThrownBy(() -> memberTestRepository.keysetSelect(cond, cursor, 3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid cursor");
+    }
+
+    @Test
+    void pageSelect_FetchPlan() {
+        // given
+        PageRequest pageRequest = PageRequest.of(0, 5);
+        FetchPlan fetchPlan = FetchPlan.of(member.team, member.team.members);
+
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            // when
+            Page<Member> result = memberTestRepository.pageSelect_FetchPlan(new MemberSearchCond(), pageRequest, fetchPlan);
+            result.forEach(m -> m.getTeam().getMembers().size());
+
+            // then
+            assertThat(result).hasSize(5);
+            assertThat(result.getTotalElements()).isEqualTo(8);
+            assertThat(result.getContent()).allSatisfy(m -> {
+                assertThat(Hibernate.isInitialized(m.getTeam())).isTrue();
+                assertThat(Hibernate.isInitialized(m.getTeam().getMembers())).isTrue();
+            });
+            // content(member + team) 1번, team.members 1번, count 1번
+            assertThat(scope.report().getTotal()).isEqualTo(3);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.cache.MemberCountCache;
+import me.iseunghan.lecturequerydsl.cache.MemberSearchResultCache;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static me.iseunghan.lecturequerydsl.repository.MemberUsernameIndex.UsernameMatch.CONTAINS;
+import static me.iseunghan.lecturequerydsl.repository.MemberUsernameIndex.UsernameMatch.PREFIX;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 인덱스는 트랜잭션이 커밋된 뒤에 갱신되므로 테스트 데이터를 커밋하고, 끝나면 지운 뒤 인덱스를 다시 만든다.
+ */
+@SpringBootTest
+class MemberUsernameIndexTest {
+
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MemberUsernameIndex usernameIndex;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberSearchResultCache searchResultCache;
+    @Autowired MemberCountCache countCache;
+
+    TransactionTemplate transaction;
+    Member alice;
+    Member alicia;
+    Member bob;
+    Member malice;
+
+    @BeforeEach
+    void setup() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            alice = new Member("alice", 10, teamA);
+            alicia = new Member("alicia", 20, teamA);
+            bob = new Member("bob", 30, teamB);
+            malice = new Member("malice", 40, teamB);
+            em.persist(alice);
+            em.persist(alicia);
+            em.persist(bob);
+            em.persist(malice);
+        });
+    }
+
+    @AfterEach
+    void cleanup() {
+        transaction.executeWithoutResult(status -> {
+            memberRepository.deleteAllInBatch();
+            teamRepository.deleteAllInBatch();
+        });
+        // 벌크 삭제는 엔티티 이벤트가 발생하지 않는다.
+        usernameIndex.rebuild();
+        searchResultCache.invalidateAll();
+        countCache.invalidateAll();
+    }
+
+    @Test
+    void find_Prefix() {
+        assertThat(usernameIndex.find("ali", PREFIX)).containsExactly(alice.getId(), alicia.getId());
+        assertThat(usernameIndex.find("alice", PREFIX)).containsExactly(alice.getId());
+    }
+
+    @Test
+    void find_Contains() {
+        // trigram 교집합
+        assertThat(usernameIndex.find("lic", CONTAINS)).containsExactly(alice.getId(), alicia.getId(), malice.getId());
+        assertThat(usernameIndex.find("alice", CONTAINS)).containsExactly(alice.getId(), malice.getId());
+        assertThat(usernameIndex.find("licia", CONTAINS)).containsExactly(alicia.getId());
+        // 3글자 미만
+        assertThat(usernameIndex.find("ob", CONTAINS)).containsExactly(bob.getId());
+    }
+
+    @Test
+    void find_UpdatedAndDeleted() {
+        // when
+        transaction.executeWithoutResult(status -> {
+            em.find(Member.class, alicia.getId()).setUsername("carol");
+            em.remove(em.find(Member.class, bob.getId()));
+            em.flush();
+
+            // then
+            // 커밋 전에는 반영되지 않는다.
+            assertThat(usernameIndex.find("car", PREFIX)).isEmpty();
+        });
+
+        assertThat(usernameIndex.find("ali", PREFIX)).containsExactly(alice.getId());
+        assertThat(usernameIndex.find("car", PREFIX)).containsExactly(alicia.getId());
+        assertThat(usernameIndex.find("bob", CONTAINS)).isEmpty();
+    }
+
+    @Test
+    void find_RolledBack() {
+        // when
+        transaction.executeWithoutResult(status -> {
+            em.find(Member.class, alice.getId()).setUsername("dave");
+            em.persist(new Member("alison", 50, null));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertThat(usernameIndex.find("ali", PREFIX)).containsExactly(alice.getId(), alicia.getId());
+        assertThat(usernameIndex.find("dav", PREFIX)).isEmpty();
+    }
+
+    @Test
+    void searchByUsername() {
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberRepository.searchByUsername("lice", CONTAINS, cond, null, 100);
+
+        assertThat(result).extracting("username").containsExactly("malice");
+    }
+
+    @Test
+    void searchByUsername_StaleIndex() {
+        // given
+        // 벌크 update는 엔티티 이벤트가 없어서 인덱스에는 예전 username이 남는다.
+        transaction.executeWithoutResult(status -> em.createQuery("update Member m set m.username = 'zed' where m.id = :id")
+                .setParameter("id", malice.getId())
+                .executeUpdate());
+        assertThat(usernameIndex.find("lice", CONTAINS)).contains(malice.getId());
+
+        // when
+        List<MemberTeamDto> result = memberRepository.searchByUsername("lice", CONTAINS, new MemberSearchCond(), null, 100);
+
+        // then
+        // DB에서 username 조건으로 다시 확인하므로 더 이상 일치하지 않는 member는 빠진다.
+        assertThat(result).extracting("username").containsExactly("alice", "alicia");
+    }
+
+    @Test
+    void searchByUsername_Limit() {
+        // when
+        List<MemberTeamDto> first = memberRepository.searchByUsername("ali", PREFIX, new MemberSearchCond(), null, 1);
+        List<MemberTeamDto> next = memberRepository.searchByUsername("ali", PREFIX, new MemberSearchCond(), first.get(0).getMemberId(), 1);
+        List<MemberTeamDto> last = memberRepository.searchByUsername("ali", PREFIX, new MemberSearchCond(), next.get(0).getMemberId(), 1);
+
+        // then
+        assertThat(first).extracting("username").containsExactly("alice");
+        assertThat(next).extracting("username").containsExactly("alicia");
+        assertThat(last).isEmpty();
+    }
+}
@@ -0,0 +1,167 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import me.iseunghan.lecturequerydsl.config.MemberShards;
+import me.iseunghan.lecturequerydsl.dto.MemberSearchCond;
+import me.iseunghan.lecturequerydsl.dto.MemberTeamDto;
+import me.iseunghan.lecturequerydsl.entity.Member;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 샤드 DB는 JPA 트랜잭션 밖이므로 @Transactional 롤백이 안 된다. 끝나면 직접 지운다.
+ */
+@SpringBootTest
+class ShardedMemberRepositoryTest {
+
+    @Autowired ShardedMemberRepository shardedMemberRepository;
+    @Autowired MemberShards shards;
+
+    List<MemberTeamDto> all = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        Team teamA = team(1L, "teamA");
+        Team teamB = team(2L, "teamB");
+        shardedMemberRepository.saveTeam(teamA);
+        shardedMemberRepository.saveTeam(teamB);
+
+        for (long id = 1; id <= 10; id++) {
+            Team team = id % 2 == 0 ? teamA : teamB;
+            Member member = new Member("member" + id, (int) (id * 7 % 10) * 10, team);
+            member.setId(id);
+            shardedMemberRepository.save(member);
+            all.add(new MemberTeamDto(id, member.getUsername(), member.getAge(), team.getId(), team.getName()));
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        shardedMemberRepository.deleteAll();
+    }
+
+    @Test
+    void save_RoutedByMemberId() {
+        // then
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            Long count = shards.all().get(i).queryForObject("select count(*) from member", Long.class);
+            assertThat(count).isEqualTo(all.stream().filter(dto -> dto.getMemberId() % shards.size() == shard).count());
+        }
+        assertThat(shards.shardOf(4L).queryForObject("select username from member where member_id = 4", String.class))
+                .isEqualTo("member4");
+    }
+
+    @Test
+    void search_MergedByMemberId() {
+        // when
+        List<MemberTeamDto> result = shardedMemberRepository.search(new MemberSearchCond());
+
+        // then
+        assertThat(result).containsExactlyElementsOf(all);
+    }
+
+    @Test
+    void search_Condition() {
+        // given
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamA");
+        cond.setAgeGoe(30);
+
+        // when
+        List<MemberTeamDto> result = shardedMemberRepository.search(cond);
+
+        // then
+        assertThat(result).containsExactlyElementsOf(all.stream()
+                .filter(dto -> dto.getTeamName().equals("teamA") && dto.getAge() >= 30)
+                .toList());
+    }
+
+    @Test
+    void searchPage_MergedSort() {
+        // given
+        PageRequest pageable = PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+        // when
+        Page<MemberTeamDto> result = shardedMemberRepository.searchPage(new MemberSearchCond(), pageable);
+
+        // then
+        List<MemberTeamDto> expected = all.stream()
+                .sorted(Comparator.comparingInt(MemberTeamDto::getAge).reversed()
+                        .thenComparing(MemberTeamDto::getMemberId))
+                .skip(3)
+                .limit(3)
+                .toList();
+        assertThat(result.getContent()).containsExactlyElementsOf(expected);
+        assertThat(result.getTotalElements()).isEqualTo(10);
+        assertThat(result.getTotalPages()).isEqualTo(4);
+    }
+
+    @Test
+    void searchPage_UnsupportedSort() {
+        // given
+        PageRequest pageable = PageRequest.of(0, 3, Sort.by("team.id"));
+
+        // when, then
+        assertThatThrownBy(() -> shardedMemberRepository.searchPage(new MemberSearchCond(), pageable))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void saveTeam_Renamed() {
+        // when
+        shardedMemberRepository.saveTeam(team(1L, "teamC"));
+
+        // then
+        // 모든 샤드에 복제된 team 이름이 바뀐다.
+        for (int i = 0; i < shards.size(); i++) {
+            assertThat(shards.all().get(i).queryForObject("select name from team where id = 1", String.class)).isEqualTo("teamC");
+        }
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamC");
+        assertThat(shardedMemberRepository.search(cond)).extracting("memberId").containsExactly(2L, 4L, 6L, 8L, 10L);
+    }
+
+    @Test
+    void deleteTeam() {
+        // given
+        shardedMemberRepository.saveTeam(team(3L, "teamC"));
+
+        // when
+        shardedMemberRepository.deleteTeam(3L);
+
+        // then
+        for (int i = 0; i < shards.size(); i++) {
+            assertThat(shards.all().get(i).queryForObject("select count(*) from team where id = 3", Long.class)).isZero();
+        }
+    }
+
+    @Test
+    void deleteTeam_HasMembers() {
+        // when, then
+        assertThatThrownBy(() -> shardedMemberRepository.deleteTeam(1L))
+                .isInstanceOf(IllegalStateException.class);
+        for (int i = 0; i < shards.size(); i++) {
+            assertThat(shards.all().get(i).queryForObject("select count(*) from team where id = 1", Long.class)).isEqualTo(1);
+        }
+    }
+
+    private static Team team(Long id, String name) {
+        Team team = new Team(name);
+        team.setId(id);
+        return team;
+    }
+}
@@ -0,0 +1,79 @@
+package me.iseunghan.lecturequerydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import me.iseunghan.lecturequerydsl.entity.Team;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@Transactional
+@SpringBootTest
+class TeamRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired TeamRepository teamRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void findFirstByName() {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.flush();
+        em.clear();
+
+        // when
+        Optional<Team> result = teamRepository.findFirstByName("teamB");
+
+        // then
+        assertThat(result).isPresent();
+        assertThat(result.get().getId()).isEqualTo(teamB.getId());
+        assertThat(teamRepository.findFirstByName("teamC")).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)    // 2차 캐시, 쿼리 캐시에는 커밋된 데이터만 담긴다.
+    void findFirstByName_Cached() {
+        // given
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Long teamId = transaction.execute(status -> teamRepository.save(new Team("teamCached")).getId());
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        try {
+            // 쿼리 캐시는 테이블이 바뀐 시각과 같은 시각에 담은 결과는 쓰지 않고 다시 조회해서 담는다. (put)
+            // 시간이 흘러 담아둔 결과를 그대로 쓸 때까지(put 없이 hit) 조회한다.
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+                statistics.clear();
+                teamRepository.findFirstByName("teamCached");
+                assertThat(statistics.getQueryCachePutCount()).isZero();
+            });
+            statistics.clear();
+
+            // when
+            Optional<Team> result = teamRepository.findFirstByName("teamCached");
+
+            // then
+            // 쿼리 캐시에서 id를, 엔티티 2차 캐시에서 Team을 찾는다.
+            assertThat(result).map(Team::getId).contains(teamId);
+            assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+            assertThat(statistics.getQueryCacheMissCount()).isZero();
+            assertThat(statistics.getQueryCachePutCount()).isZero();
+            assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        } finally {
+            transaction.executeWithoutResult(status -> teamRepository.deleteById(teamId));
+        }
+    }
+}